@@ -0,0 +1,107 @@
+package com.bill.service;
+
+import com.bill.repository.entity.Enrollment;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// rows per second of a 5,000 row enrollment import through hibernate with the app's Enrollment mapping, on an
+// embedded postgres migrated by flyway. identity is the mapping before (IDENTITY ids, one insert and round trip per
+// row), pooled is the mapping as it is (sequence ids by 50, jdbc batching and reWriteBatchedInserts as in application.yml)
+// run: mvn -Pjmh test-compile exec:java -Dexec.args="EnrollmentImportBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EnrollmentImportBenchmark {
+    private static final int ROWS = 5_000;
+
+    // the id of Enrollment as it was mapped before, everything else stays as annotated
+    private static final String IDENTITY_MAPPING = """
+            <entity-mappings xmlns="https://jakarta.ee/xml/ns/persistence/orm" version="3.1">
+              <entity class="com.bill.repository.entity.Enrollment">
+                <attributes>
+                  <id name="id">
+                    <generated-value strategy="IDENTITY"/>
+                  </id>
+                </attributes>
+              </entity>
+            </entity-mappings>
+            """;
+
+    @Param({"identity", "pooled"})
+    String idGeneration;
+
+    EmbeddedPostgres postgres;
+    SessionFactory sessionFactory;
+
+    @Setup
+    public void setup() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .schemas("myclassmate")
+                .defaultSchema("myclassmate")
+                .createSchemas(true)
+                .load()
+                .migrate();
+
+        var url = "jdbc:postgresql://localhost:" + postgres.getPort() + "/postgres";
+        var configuration = new Configuration()
+                .addAnnotatedClass(Enrollment.class)
+                .setProperty("hibernate.connection.username", "postgres")
+                .setProperty("hibernate.connection.password", "postgres")
+                .setProperty("hibernate.default_schema", "myclassmate")
+                .setProperty("hibernate.hbm2ddl.auto", "validate");
+
+        if ("pooled".equals(idGeneration)) {
+            configuration.setProperty("hibernate.connection.url", url + "?reWriteBatchedInserts=true")
+                    .setProperty("hibernate.jdbc.batch_size", "50")
+                    .setProperty("hibernate.order_inserts", "true")
+                    .setProperty("hibernate.order_updates", "true");
+        } else {
+            configuration.addInputStream(new ByteArrayInputStream(IDENTITY_MAPPING.getBytes(StandardCharsets.UTF_8)))
+                    .setProperty("hibernate.connection.url", url);
+        }
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        sessionFactory.close();
+        postgres.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        sessionFactory.inTransaction(session -> session
+                .createNativeMutationQuery("truncate table myclassmate.enrollments")
+                .executeUpdate());
+    }
+
+    // same shape as enrollmentRepository.saveAll in importStudentToCourse, score is rows per second
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void importEnrollments() {
+        var now = LocalDateTime.now();
+        sessionFactory.inTransaction(session -> {
+            for (long i = 0; i < ROWS; i++) {
+                session.persist(Enrollment.builder()
+                        .studentId(i)
+                        .courseId(1L)
+                        .createdAt(now)
+                        .build());
+            }
+        });
+    }
+}
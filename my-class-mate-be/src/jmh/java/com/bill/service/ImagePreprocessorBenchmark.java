@@ -0,0 +1,126 @@
+package com.bill.service;
+
+import com.bill.model.response.FastAPIFaceRegResponse;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// end-to-end latency of one attendance upload against a local stub that decodes the image like fast-api does
+// run: mvn -Pjmh test-compile exec:java -Dexec.args="ImagePreprocessorBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImagePreprocessorBenchmark {
+    private static final String ENDPOINT = "/v1/face-recognition";
+
+    @Param({"4032x3024"})
+    String photoSize;
+
+    HttpServer stub;
+    ApiClient apiClient;
+    ImagePreprocessor imagePreprocessor;
+    MockMultipartFile photo;
+
+    @Setup
+    public void setup() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext(ENDPOINT, exchange -> {
+            var bytes = exchange.getRequestBody().readAllBytes();
+            // stand-in for cv2.imdecode, decode cost grows with the pixel count like the real service
+            decodeFirstPart(bytes);
+            var response = "{\"status\":\"Success\",\"user_id\":1}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        stub.start();
+
+        apiClient = new ApiClient(new RestTemplate(new SimpleClientHttpRequestFactory()));
+        ReflectionTestUtils.setField(apiClient, "FASTAPI_URL", "http://localhost:" + stub.getAddress().getPort());
+
+        imagePreprocessor = new ImagePreprocessor();
+        ReflectionTestUtils.setField(imagePreprocessor, "enabled", true);
+        ReflectionTestUtils.setField(imagePreprocessor, "maxEdge", 1280);
+        ReflectionTestUtils.setField(imagePreprocessor, "jpegQuality", 0.9f);
+        ReflectionTestUtils.setField(imagePreprocessor, "workers", 2);
+        ReflectionTestUtils.setField(imagePreprocessor, "queueCapacity", 4);
+        ReflectionTestUtils.setField(imagePreprocessor, "timeoutMs", 30_000L);
+        imagePreprocessor.init();
+
+        var size = photoSize.split("x");
+        photo = new MockMultipartFile("file", "photo.jpg", "image/jpeg",
+                syntheticPhoto(Integer.parseInt(size[0]), Integer.parseInt(size[1])));
+    }
+
+    @TearDown
+    public void tearDown() {
+        imagePreprocessor.shutdown();
+        stub.stop(0);
+    }
+
+    @Benchmark
+    public FastAPIFaceRegResponse rawUpload() {
+        return apiClient.postMultipartSafe(ENDPOINT, null, List.of(photo), FastAPIFaceRegResponse.class, "file");
+    }
+
+    @Benchmark
+    public FastAPIFaceRegResponse preprocessedUpload() {
+        var image = imagePreprocessor.preprocess(photo);
+        return apiClient.postResourceSafe(ENDPOINT, null, List.of(image), FastAPIFaceRegResponse.class, "file");
+    }
+
+    private static void decodeFirstPart(byte[] multipart) throws IOException {
+        // jpeg starts at SOI marker, ImageIO stops at EOI and ignores the trailing boundary
+        for (int i = 0; i < multipart.length - 1; i++) {
+            if ((multipart[i] & 0xFF) == 0xFF && (multipart[i + 1] & 0xFF) == 0xD8) {
+                ImageIO.read(new ByteArrayInputStream(multipart, i, multipart.length - i));
+                return;
+            }
+        }
+    }
+
+    // gradients plus sensor-like noise, compresses roughly like a phone camera jpeg
+    private static byte[] syntheticPhoto(int width, int height) throws IOException {
+        var random = new Random(42);
+        var image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                var noise = random.nextInt(24);
+                var r = (x * 255 / width + noise) & 0xFF;
+                var g = (y * 255 / height + noise) & 0xFF;
+                var b = ((x + y) * 255 / (width + height) + noise) & 0xFF;
+                image.setRGB(x, y, r << 16 | g << 8 | b);
+            }
+        }
+
+        var g = image.createGraphics();
+        g.setColor(Color.DARK_GRAY);
+        for (int i = 0; i < 30; i++) {
+            g.fillOval(random.nextInt(width), random.nextInt(height), width / 20, width / 16);
+        }
+        g.dispose();
+
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,105 @@
+package com.bill.service;
+
+import com.bill.constant.AttendanceStatusEnum;
+import com.bill.model.response.CourseScheduleForReportResponse;
+import com.bill.model.response.CourseScheduleForReportResponse.AttendanceForReport;
+import com.bill.model.response.CourseScheduleForReportResponse.ParticipationForReport;
+import com.bill.model.response.CourseScheduleForReportResponse.ParticipationForReport.RequestParticipationForReport;
+import org.apache.commons.collections4.CollectionUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// run: mvn -Pjmh test-compile exec:java
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportMatrixBenchmark {
+    @Param({"300"})
+    int students;
+
+    @Param({"30"})
+    int schedules;
+
+    @Param({"10"})
+    int rounds;
+
+    List<CourseScheduleForReportResponse> report;
+
+    @Setup
+    public void setup() {
+        var random = new Random(42);
+        var statuses = AttendanceStatusEnum.values();
+        report = new ArrayList<>();
+
+        for (long s = 1; s <= schedules; s++) {
+            var attendances = new ArrayList<AttendanceForReport>();
+            for (long st = 1; st <= students; st++) {
+                attendances.add(AttendanceForReport.builder()
+                        .studentId(st)
+                        .studentNo(String.valueOf(6_000_000 + st))
+                        .status(statuses[random.nextInt(statuses.length)])
+                        .build());
+            }
+
+            var participations = new ArrayList<ParticipationForReport>();
+            for (int r = 1; r <= rounds; r++) {
+                var requests = new ArrayList<RequestParticipationForReport>();
+                for (long st = 1; st <= students; st++) {
+                    if (random.nextInt(5) == 0) {
+                        requests.add(RequestParticipationForReport.builder()
+                                .studentId(st)
+                                .isScored(true)
+                                .score(random.nextInt(4))
+                                .build());
+                    }
+                }
+                participations.add(ParticipationForReport.builder().round(r).requestParticipations(requests).build());
+            }
+
+            report.add(CourseScheduleForReportResponse.builder()
+                    .courseScheduleId(s)
+                    .attendances(attendances)
+                    .participations(participations)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public void pivotIndex(Blackhole bh) {
+        var matrix = ReportMatrix.of(report);
+        for (long st = 1; st <= students; st++) {
+            for (var schedule : report) {
+                bh.consume(matrix.getAttendanceStatus(st, schedule.getCourseScheduleId()));
+                bh.consume(matrix.getParticipation(st, schedule.getCourseScheduleId()));
+            }
+        }
+    }
+
+    // previous per-cell scanning in ReportService.exportReports, kept as baseline
+    @Benchmark
+    public void linearScan(Blackhole bh) {
+        for (long st = 1; st <= students; st++) {
+            var studentId = st;
+            for (var schedule : report) {
+                bh.consume(CollectionUtils.isEmpty(schedule.getAttendances()) ? null :
+                        schedule.getAttendances().stream()
+                                .filter(a -> a.getStudentId().equals(studentId))
+                                .findFirst().orElse(null));
+
+                bh.consume(schedule.getParticipations().stream()
+                        .filter(p -> p.getRequestParticipations() != null)
+                        .flatMap(p -> p.getRequestParticipations().stream())
+                        .filter(r -> r.getStudentId().equals(studentId))
+                        .toList());
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.bill.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// stands in for fast-api /v1/face-recognition, latency is log-normal from the configured median and p99,
+// errors use the same bodies as the real service (ERR004 not found = 404, ERR005 processing error = 500)
+// the recognized user id is read back from the image size, see faceImage
+@Slf4j
+class FastApiStub implements AutoCloseable {
+    static final String CONTEXT_PATH = "/my-class-mate";
+
+    // z of the 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    private final LoadTestConfig config;
+    private final Random random;
+    private final double mu;
+    private final double sigma;
+    private final AtomicLong calls = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    FastApiStub(LoadTestConfig config) {
+        this.config = config;
+        this.random = new Random(config.seed());
+        this.mu = Math.log(Math.max(1, config.stubMedianMs()));
+        this.sigma = Math.log((double) Math.max(config.stubP99Ms(), config.stubMedianMs()) / Math.max(1, config.stubMedianMs())) / Z_99;
+    }
+
+    // width and height carry the user id so the app's preprocessor (which keeps small jpegs as they are) does not lose it
+    static int[] faceImageSize(long userId) {
+        return new int[]{16 + (int) (userId % 1000), 16 + (int) (userId / 1000)};
+    }
+
+    void start() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 512);
+        server.setExecutor(executor);
+        server.createContext(CONTEXT_PATH + "/v1/face-recognition", this::recognize);
+        server.start();
+        log.info("FastApiStub started on port {}, median = {} ms, p99 = {} ms", getPort(), config.stubMedianMs(), config.stubP99Ms());
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    long getCalls() {
+        return calls.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void recognize(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            calls.incrementAndGet();
+            var body = exchange.getRequestBody().readAllBytes();
+
+            double latency;
+            double outcome;
+            synchronized (random) {
+                latency = Math.exp(mu + sigma * random.nextGaussian());
+                outcome = random.nextDouble();
+            }
+            sleep((long) latency);
+
+            if (outcome < config.stubErrorRate()) {
+                respond(exchange, 500, "{\"detail\":{\"code\":\"ERR005\",\"message\":\"stub processing error\"}}");
+                return;
+            }
+            var userId = readUserId(body);
+            if (userId == null || outcome < config.stubErrorRate() + config.stubNotFoundRate()) {
+                respond(exchange, 404, "{\"detail\":{\"code\":\"ERR004\",\"message\":\"stub face not found\"}}");
+                return;
+            }
+            respond(exchange, 200, "{\"status\":\"Success\",\"user_id\":" + userId
+                    + ",\"file_name\":\"face.jpg\",\"distance\":0.3,\"threshold\":0.6}");
+        }
+    }
+
+    // the jpeg starts at its SOI marker inside the multipart body, the reader stops at the end of the image
+    private Long readUserId(byte[] body) throws IOException {
+        for (int i = 0; i + 1 < body.length; i++) {
+            if ((body[i] & 0xFF) == 0xFF && (body[i + 1] & 0xFF) == 0xD8) {
+                var image = ImageIO.read(new ByteArrayInputStream(body, i, body.length - i));
+                return image != null ? (image.getHeight() - 16) * 1000L + (image.getWidth() - 16) : null;
+            }
+        }
+        return null;
+    }
+
+    private void respond(HttpExchange exchange, int status, String json) throws IOException {
+        var bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
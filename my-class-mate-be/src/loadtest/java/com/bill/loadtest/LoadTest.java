@@ -0,0 +1,308 @@
+package com.bill.loadtest;
+
+import com.bill.MyClassMateBeApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// lecture start check-in storm against the real app: embedded postgres, fast-api replaced by FastApiStub,
+// then check-in, participation and report traffic, results written as json for comparing builds
+// everything runs in this jvm and on localhost, no network or external service needed
+// run: mvn -Ploadtest test-compile exec:java -Dloadtest.students-per-course=100 -Dloadtest.check-in.ramp-seconds=120
+@Slf4j
+public class LoadTest {
+    private static final String ROLE_HEADER = "X-Role";
+
+    private final LoadTestConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Object> scenarios = new LinkedHashMap<>();
+    private HttpClient httpClient;
+    private String baseUrl;
+    private PoolSampler poolSampler;
+
+    LoadTest(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // devtools is on the test classpath, its restart classloader would load the app twice
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        new LoadTest(LoadTestConfig.fromSystemProperties()).run();
+    }
+
+    void run() throws Exception {
+        var startedAt = LocalDateTime.now();
+        try (var postgres = EmbeddedPostgres.builder().start(); var stub = new FastApiStub(config)) {
+            var seeder = new LoadTestSeeder(postgres.getPostgresDatabase(), config);
+            seeder.createSchema(Path.of(System.getProperty("loadtest.ddl", "my-class-mate-ddl.sql")));
+            var dataset = seeder.seed();
+            stub.start();
+
+            try (var context = startApp(postgres.getPort(), stub.getPort())) {
+                baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/my-class-mate";
+                httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+                poolSampler = new PoolSampler(context.getBean(MeterRegistry.class));
+
+                var checkedIn = checkInStorm(dataset);
+                participation(dataset, checkedIn);
+                reports(dataset);
+            } finally {
+                if (poolSampler != null) {
+                    poolSampler.close();
+                }
+            }
+
+            var report = new LinkedHashMap<String, Object>();
+            report.put("startedAt", startedAt.toString());
+            report.put("config", config);
+            report.put("stubCalls", stub.getCalls());
+            report.put("scenarios", scenarios);
+            writeReport(report, startedAt);
+        }
+    }
+
+    private ConfigurableApplicationContext startApp(int postgresPort, int stubPort) {
+        var properties = new LinkedHashMap<String, Object>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", "jdbc:postgresql://localhost:" + postgresPort + "/postgres?currentSchema=myclassmate&reWriteBatchedInserts=true");
+        properties.put("spring.datasource.username", "postgres");
+        properties.put("spring.datasource.password", "postgres");
+        properties.put("app.fast-api.url", "http://localhost:" + stubPort + FastApiStub.CONTEXT_PATH);
+        // no nightly job or mail during the run
+        properties.put("app.scheduler.cron", "-");
+        properties.put("spring.mail.host", "localhost");
+
+        // as command line args, which win over application.yml, .properties(...) would only set defaults
+        // and the app would connect to the datasource in application.yml instead of the embedded postgres
+        var args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(MyClassMateBeApplication.class)
+                .profiles("loadtest")
+                .run(args);
+    }
+
+    // every enrolled student checks in once, arrivals spread at random over the ramp like students walking in
+    private Set<Long> checkInStorm(LoadTestSeeder.Dataset dataset) throws InterruptedException {
+        var recorder = new ScenarioRecorder("check-in");
+        var checkedIn = ConcurrentHashMap.<Long>newKeySet();
+        var random = new Random(config.seed());
+        var rampNanos = TimeUnit.SECONDS.toNanos(config.checkInRampSeconds());
+
+        var tasks = new ArrayList<Arrival>();
+        for (var course : dataset.courses()) {
+            for (var studentId : course.studentIds()) {
+                var offset = (long) (random.nextDouble() * rampNanos);
+                tasks.add(new Arrival(offset, () -> {
+                    var response = post("/v1/attendance/" + course.courseId() + "/" + course.scheduleId(),
+                            multipart("file", "face-" + studentId + ".jpg", faceImage(studentId)));
+                    if (response.statusCode() == 200) {
+                        checkedIn.add(studentId);
+                    }
+                    return response.statusCode();
+                }));
+            }
+        }
+
+        runScenario(recorder, tasks, config.checkInConcurrency());
+        return checkedIn;
+    }
+
+    // each round: lecturer opens, every checked in student of the course requests at once, lecturer closes
+    private void participation(LoadTestSeeder.Dataset dataset, Set<Long> checkedIn) throws Exception {
+        var requests = new ScenarioRecorder("participation.request");
+        var lecturer = new ScenarioRecorder("participation.lecturer");
+        requests.start();
+        lecturer.start();
+        poolSampler.start();
+
+        for (int round = 1; round <= config.participationRounds(); round++) {
+            var opened = new ArrayList<OpenRound>();
+            for (var course : dataset.courses()) {
+                var startNanos = System.nanoTime();
+                var response = postJson("/v1/participations", Map.of(
+                        "courseScheduleId", course.scheduleId(),
+                        "lecturerId", dataset.lecturerId(),
+                        "topic", "round " + round));
+                lecturer.record(startNanos, String.valueOf(response.statusCode()));
+                if (response.statusCode() == 200) {
+                    opened.add(new OpenRound(objectMapper.readTree(response.body()).get("participationId").asLong(), course));
+                }
+            }
+
+            var tasks = new ArrayList<Arrival>();
+            for (var open : opened) {
+                for (var studentId : open.course().studentIds()) {
+                    if (checkedIn.contains(studentId)) {
+                        tasks.add(new Arrival(0, () -> postJson("/v1/participations/requests", Map.of(
+                                "participationId", open.participationId(),
+                                "studentId", studentId,
+                                "courseScheduleId", open.course().scheduleId())).statusCode()));
+                    }
+                }
+            }
+            execute(requests, tasks, config.participationConcurrency());
+
+            for (var open : opened) {
+                var startNanos = System.nanoTime();
+                var response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/v1/participations/" + open.participationId()))
+                        .PUT(HttpRequest.BodyPublishers.noBody()));
+                lecturer.record(startNanos, String.valueOf(response.statusCode()));
+            }
+        }
+
+        requests.stop();
+        lecturer.stop();
+        var pools = poolSampler.stop();
+        addScenario(requests, pools);
+        addScenario(lecturer, pools);
+    }
+
+    // lecturers opening the report page and downloading the excel export, closed loop
+    private void reports(LoadTestSeeder.Dataset dataset) throws InterruptedException {
+        var recorder = new ScenarioRecorder("report");
+        var tasks = new ArrayList<Arrival>();
+        for (int i = 0; i < config.reportRequests(); i++) {
+            var courseId = dataset.courses().get(i % dataset.courses().size()).courseId();
+            var path = "/v1/reports/course/" + courseId + (i % 2 == 0 ? "" : "/export");
+            tasks.add(new Arrival(0, () -> send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET()).statusCode()));
+        }
+        runScenario(recorder, tasks, config.reportConcurrency());
+    }
+
+    private void runScenario(ScenarioRecorder recorder, List<Arrival> tasks, int concurrency) throws InterruptedException {
+        poolSampler.start();
+        recorder.start();
+        execute(recorder, tasks, concurrency);
+        recorder.stop();
+        addScenario(recorder, poolSampler.stop());
+    }
+
+    // tasks start at their offset on one of `concurrency` workers, latency counts from the planned start
+    private void execute(ScenarioRecorder recorder, List<Arrival> tasks, int concurrency) throws InterruptedException {
+        log.info("LoadTest {} requests = {}, concurrency = {}", recorder.getName(), tasks.size(), concurrency);
+        var workers = Executors.newFixedThreadPool(concurrency);
+        var scheduler = Executors.newSingleThreadScheduledExecutor();
+        var startNanos = System.nanoTime();
+        for (var task : tasks) {
+            var intendedStartNanos = startNanos + task.offsetNanos();
+            scheduler.schedule(() -> workers.execute(() -> {
+                String outcome;
+                try {
+                    outcome = String.valueOf(task.call().call());
+                } catch (Exception e) {
+                    outcome = e.getClass().getSimpleName();
+                }
+                recorder.record(intendedStartNanos, outcome);
+            }), task.offsetNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.DAYS);
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.DAYS);
+    }
+
+    private void addScenario(ScenarioRecorder recorder, Map<String, Object> pools) {
+        var result = recorder.toReport();
+        result.put("pools", pools);
+        scenarios.put(recorder.getName(), result);
+        log.info("LoadTest {} = {}", recorder.getName(), result);
+    }
+
+    private HttpResponse<String> post(String path, Multipart body) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "multipart/form-data; boundary=" + body.boundary())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.bytes())));
+    }
+
+    private HttpResponse<String> postJson(String path, Map<String, Object> body) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.header(ROLE_HEADER, "LECTURER").timeout(Duration.ofSeconds(60)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private byte[] faceImage(long studentId) throws IOException {
+        var size = FastApiStub.faceImageSize(studentId);
+        var image = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_RGB);
+        var g = image.createGraphics();
+        try {
+            g.setColor(Color.GRAY);
+            g.fillRect(0, 0, size[0], size[1]);
+        } finally {
+            g.dispose();
+        }
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private Multipart multipart(String name, String filename, byte[] content) throws IOException {
+        var boundary = "loadtest" + System.nanoTime();
+        var out = new ByteArrayOutputStream();
+        out.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(content);
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return new Multipart(boundary, out.toByteArray());
+    }
+
+    private void writeReport(Map<String, Object> report, LocalDateTime startedAt) throws IOException {
+        var path = config.reportPath().isBlank()
+                ? Path.of("target", "loadtest", "loadtest-" + startedAt.format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json")
+                : Path.of(config.reportPath());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        log.info("LoadTest report written to {}", path.toAbsolutePath());
+    }
+
+    private record Arrival(long offsetNanos, Callable<Integer> call) {
+    }
+
+    private record OpenRound(long participationId, LoadTestSeeder.CourseSeed course) {
+    }
+
+    private record Multipart(String boundary, byte[] bytes) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.bill.loadtest;
+
+// all knobs are -Dloadtest.* system properties so two builds can be compared with the same command line
+public record LoadTestConfig(
+        long seed,
+        int courses,
+        int studentsPerCourse,
+        int historyWeeks,
+        int checkInRampSeconds,
+        int checkInConcurrency,
+        int participationRounds,
+        int participationConcurrency,
+        int reportRequests,
+        int reportConcurrency,
+        long stubMedianMs,
+        long stubP99Ms,
+        double stubNotFoundRate,
+        double stubErrorRate,
+        String reportPath) {
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Long.getLong("loadtest.seed", 42),
+                Integer.getInteger("loadtest.courses", 4),
+                Integer.getInteger("loadtest.students-per-course", 100),
+                Integer.getInteger("loadtest.history-weeks", 12),
+                Integer.getInteger("loadtest.check-in.ramp-seconds", 120),
+                Integer.getInteger("loadtest.check-in.concurrency", 200),
+                Integer.getInteger("loadtest.participation.rounds", 5),
+                Integer.getInteger("loadtest.participation.concurrency", 200),
+                Integer.getInteger("loadtest.report.requests", 40),
+                Integer.getInteger("loadtest.report.concurrency", 8),
+                Long.getLong("loadtest.stub.median-ms", 150),
+                Long.getLong("loadtest.stub.p99-ms", 800),
+                Double.parseDouble(System.getProperty("loadtest.stub.not-found-rate", "0.02")),
+                Double.parseDouble(System.getProperty("loadtest.stub.error-rate", "0.01")),
+                System.getProperty("loadtest.report", ""));
+    }
+}
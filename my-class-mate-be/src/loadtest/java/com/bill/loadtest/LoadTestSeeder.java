@@ -0,0 +1,169 @@
+package com.bill.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+// creates the schema with the app's flyway migrations plus the fast-api table from my-class-mate-ddl.sql, and seeds
+// one lecturer, courses with enrolled students, a schedule running today per course (the one the storm checks in to)
+// and weekly past schedules with attendance for reports
+@Slf4j
+class LoadTestSeeder {
+    private static final String[] STATUSES = {"PRESENT", "PRESENT", "PRESENT", "LATE", "ABSENT"};
+
+    private final DataSource dataSource;
+    private final LoadTestConfig config;
+    private final Random random;
+
+    LoadTestSeeder(DataSource dataSource, LoadTestConfig config) {
+        this.dataSource = dataSource;
+        this.config = config;
+        this.random = new Random(config.seed());
+    }
+
+    record CourseSeed(long courseId, long scheduleId, List<Long> studentIds) {
+    }
+
+    record Dataset(long lecturerId, List<CourseSeed> courses) {
+    }
+
+    void createSchema(Path ddl) throws IOException, SQLException {
+        // same migrations the app runs on startup, it then finds the schema up to date
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("myclassmate")
+                .createSchemas(true)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        // pgvector is not part of the embedded postgres so the fast-api embedding column becomes a plain array,
+        // the app never reads it
+        var script = Files.readAllLines(ddl).stream()
+                .filter(line -> !line.trim().startsWith("--") && !line.contains("USING hnsw"))
+                .map(line -> line.replace("vector(512)", "real[]"))
+                .collect(Collectors.joining("\n"));
+
+        try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+            for (var sql : script.split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    Dataset seed() throws SQLException {
+        var now = LocalDateTime.now();
+        var today = LocalDate.now();
+        // started a few minutes ago so check-ins are PRESENT, ends before midnight so the roster stays valid
+        var startTime = LocalTime.now().minusMinutes(5).withSecond(0).withNano(0);
+        var endTime = startTime.isAfter(LocalTime.of(20, 0)) ? LocalTime.of(23, 59) : startTime.plusHours(3);
+
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            long nextUserId = 1;
+            var lecturerId = nextUserId++;
+            insertUser(connection, lecturerId, "LECTURER", now);
+
+            var courses = new ArrayList<CourseSeed>();
+            long nextScheduleId = 1;
+            long nextAttendanceId = 1;
+            for (int c = 0; c < config.courses(); c++) {
+                var courseId = c + 1L;
+                insert(connection, "INSERT INTO myclassmate.courses (id, course_code, course_name, academic_year, semester, room, start_time, end_time, day_of_week, start_date, end_date, created_by, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                        courseId, "LT" + courseId, "Load test course " + courseId, today.getYear(), 1, "R" + courseId,
+                        Time.valueOf(startTime), Time.valueOf(endTime), today.getDayOfWeek().name(),
+                        Date.valueOf(today.minusWeeks(config.historyWeeks())), Date.valueOf(today.plusWeeks(4)),
+                        lecturerId, Timestamp.valueOf(now), Timestamp.valueOf(now));
+                insert(connection, "INSERT INTO myclassmate.course_lecturers (id, course_id, lecturer_id) VALUES (?, ?, ?)",
+                        courseId, courseId, lecturerId);
+
+                var studentIds = new ArrayList<Long>();
+                for (int s = 0; s < config.studentsPerCourse(); s++) {
+                    var studentId = nextUserId++;
+                    insertUser(connection, studentId, "STUDENT", now);
+                    insert(connection, "INSERT INTO myclassmate.student_profiles (student_id, student_no, created_at, updated_at) VALUES (?, ?, ?, ?)",
+                            studentId, String.format("ST%07d", studentId), Timestamp.valueOf(now), Timestamp.valueOf(now));
+                    insert(connection, "INSERT INTO myclassmate.enrollments (id, student_id, course_id, created_at) VALUES (?, ?, ?, ?)",
+                            studentId, studentId, courseId, Timestamp.valueOf(now));
+                    studentIds.add(studentId);
+                }
+
+                // past weekly sessions with attendance, the report reads all of them
+                for (int week = config.historyWeeks(); week >= 1; week--) {
+                    var scheduleId = nextScheduleId++;
+                    var scheduleDate = today.minusWeeks(week);
+                    insertSchedule(connection, scheduleId, courseId, scheduleDate, startTime, endTime, now);
+                    try (var statement = connection.prepareStatement("INSERT INTO myclassmate.attendances (id, student_id, course_id, course_schedule_id, created_at, status) VALUES (?, ?, ?, ?, ?, ?)")) {
+                        for (var studentId : studentIds) {
+                            statement.setLong(1, nextAttendanceId++);
+                            statement.setLong(2, studentId);
+                            statement.setLong(3, courseId);
+                            statement.setLong(4, scheduleId);
+                            statement.setTimestamp(5, Timestamp.valueOf(scheduleDate.atTime(startTime)));
+                            statement.setString(6, STATUSES[random.nextInt(STATUSES.length)]);
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    }
+                }
+
+                var todayScheduleId = nextScheduleId++;
+                insertSchedule(connection, todayScheduleId, courseId, today, startTime, endTime, now);
+                courses.add(new CourseSeed(courseId, todayScheduleId, List.copyOf(studentIds)));
+            }
+
+            // explicit ids above, move the identity sequences past them for rows the app inserts
+            for (var table : List.of("users", "courses", "course_lecturers", "enrollments", "course_schedules", "attendances")) {
+                try (var statement = connection.createStatement()) {
+                    statement.execute("SELECT setval(pg_get_serial_sequence('myclassmate." + table + "', 'id'), (SELECT max(id) FROM myclassmate." + table + "))");
+                }
+            }
+            connection.commit();
+
+            log.info("LoadTestSeeder seeded courses = {}, students = {}, history schedules = {}, history attendances = {}",
+                    config.courses(), nextUserId - 2, config.courses() * config.historyWeeks(), nextAttendanceId - 1);
+            return new Dataset(lecturerId, courses);
+        }
+    }
+
+    private void insertUser(Connection connection, long userId, String role, LocalDateTime now) throws SQLException {
+        insert(connection, "INSERT INTO myclassmate.users (id, username, password, name_th, surname_th, name_en, surname_en, email, role, is_deleted, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                userId, "user" + userId, "-", "ชื่อ" + userId, "นามสกุล" + userId, "Name" + userId, "Surname" + userId,
+                "user" + userId + "@loadtest.local", role, false, Timestamp.valueOf(now), Timestamp.valueOf(now));
+    }
+
+    private void insertSchedule(Connection connection, long scheduleId, long courseId, LocalDate date, LocalTime startTime,
+                                LocalTime endTime, LocalDateTime now) throws SQLException {
+        insert(connection, "INSERT INTO myclassmate.course_schedules (id, course_id, schedule_date, start_time, end_time, room, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                scheduleId, courseId, Date.valueOf(date), Time.valueOf(startTime), Time.valueOf(endTime), "R" + courseId,
+                Timestamp.valueOf(now), Timestamp.valueOf(now));
+    }
+
+    private void insert(Connection connection, String sql, Object... values) throws SQLException {
+        try (var statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+}
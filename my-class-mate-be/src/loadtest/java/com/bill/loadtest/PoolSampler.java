@@ -0,0 +1,92 @@
+package com.bill.loadtest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// samples the app's own pool gauges (hikari and the fast-api http client) while a scenario runs,
+// pending > 0 means callers were waiting for a connection
+class PoolSampler implements AutoCloseable {
+    private static final long INTERVAL_MS = 50;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+    private ScheduledExecutorService executor;
+
+    PoolSampler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        stats.put("db.active", new Stats(registry -> registry.find("hikaricp.connections.active")));
+        stats.put("db.pending", new Stats(registry -> registry.find("hikaricp.connections.pending")));
+        stats.put("db.max", new Stats(registry -> registry.find("hikaricp.connections.max")));
+        stats.put("fastApi.leased", new Stats(registry -> registry.find("httpcomponents.httpclient.pool.total.connections").tag("state", "leased")));
+        stats.put("fastApi.pending", new Stats(registry -> registry.find("httpcomponents.httpclient.pool.total.pending")));
+        stats.put("fastApi.max", new Stats(registry -> registry.find("httpcomponents.httpclient.pool.total.max")));
+        stats.put("participation.queue", new Stats(registry -> registry.find("participation.request.queue")));
+    }
+
+    synchronized void start() {
+        stats.values().forEach(Stats::reset);
+        executor = Executors.newSingleThreadScheduledExecutor();
+        executor.scheduleAtFixedRate(this::sample, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized Map<String, Object> stop() {
+        close();
+        var report = new LinkedHashMap<String, Object>();
+        stats.forEach((name, stat) -> report.put(name, stat.toReport()));
+        return report;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private synchronized void sample() {
+        stats.values().forEach(stat -> stat.sample(meterRegistry));
+    }
+
+    private static class Stats {
+        private final Function<MeterRegistry, Search> search;
+        private double max;
+        private double sum;
+        private long samples;
+
+        Stats(Function<MeterRegistry, Search> search) {
+            this.search = search;
+        }
+
+        void reset() {
+            max = 0;
+            sum = 0;
+            samples = 0;
+        }
+
+        void sample(MeterRegistry meterRegistry) {
+            var value = search.apply(meterRegistry).gauges().stream()
+                    .mapToDouble(Gauge::value)
+                    .filter(v -> !Double.isNaN(v))
+                    .sum();
+            max = Math.max(max, value);
+            sum += value;
+            samples++;
+        }
+
+        Map<String, Object> toReport() {
+            var report = new LinkedHashMap<String, Object>();
+            report.put("max", max);
+            report.put("mean", samples > 0 ? sum / samples : 0);
+            return report;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.bill.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// latency of every request of one scenario, measured from the intended start so queueing in the driver counts
+// (no coordinated omission), percentiles are exact from the sorted samples
+class ScenarioRecorder {
+    private final String name;
+    private long[] latencies = new long[1024];
+    private int count;
+    private final Map<String, Integer> outcomes = new TreeMap<>();
+    private long startNanos;
+    private long endNanos;
+
+    ScenarioRecorder(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    synchronized void start() {
+        startNanos = System.nanoTime();
+    }
+
+    synchronized void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    // outcome is the http status, or the exception class when there was no response
+    synchronized void record(long intendedStartNanos, String outcome) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = System.nanoTime() - intendedStartNanos;
+        outcomes.merge(outcome, 1, Integer::sum);
+    }
+
+    synchronized Map<String, Object> toReport() {
+        var sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        var elapsedSeconds = (endNanos - startNanos) / 1e9;
+        var errors = outcomes.entrySet().stream()
+                .filter(entry -> !entry.getKey().startsWith("2"))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+
+        var latencyMs = new LinkedHashMap<String, Object>();
+        latencyMs.put("p50", percentileMs(sorted, 0.50));
+        latencyMs.put("p95", percentileMs(sorted, 0.95));
+        latencyMs.put("p99", percentileMs(sorted, 0.99));
+        latencyMs.put("max", count > 0 ? sorted[count - 1] / 1e6 : 0);
+        latencyMs.put("mean", count > 0 ? Arrays.stream(sorted).average().orElse(0) / 1e6 : 0);
+
+        var report = new LinkedHashMap<String, Object>();
+        report.put("requests", count);
+        report.put("errors", errors);
+        report.put("outcomes", outcomes);
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("throughputPerSecond", elapsedSeconds > 0 ? count / elapsedSeconds : 0);
+        report.put("latencyMs", latencyMs);
+        return report;
+    }
+
+    private double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        var index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
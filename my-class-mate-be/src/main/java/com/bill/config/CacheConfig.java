@@ -0,0 +1,52 @@
+package com.bill.config;
+
+import com.bill.model.response.StudentProfileResponse;
+import com.bill.model.response.UserResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${app.cache.users.max-size}")
+    private long usersMaxSize;
+
+    @Value("${app.cache.users.ttl-minutes}")
+    private long usersTtlMinutes;
+
+    @Value("${app.cache.student-profiles.max-size}")
+    private long studentProfilesMaxSize;
+
+    @Value("${app.cache.student-profiles.ttl-minutes}")
+    private long studentProfilesTtlMinutes;
+
+    // key = userId, basic user info only (getUser with needAllInfo = false)
+    @Bean
+    public Cache<Long, UserResponse> userCache(MeterRegistry meterRegistry) {
+        Cache<Long, UserResponse> cache = Caffeine.newBuilder()
+                .maximumSize(usersMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(usersTtlMinutes))
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size on /actuator/metrics
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    // key = studentId
+    @Bean
+    public Cache<Long, StudentProfileResponse> studentProfileCache(MeterRegistry meterRegistry) {
+        Cache<Long, StudentProfileResponse> cache = Caffeine.newBuilder()
+                .maximumSize(studentProfilesMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(studentProfilesTtlMinutes))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "student-profiles");
+    }
+}
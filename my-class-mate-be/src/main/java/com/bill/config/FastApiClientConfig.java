@@ -0,0 +1,80 @@
+package com.bill.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+@Configuration
+public class FastApiClientConfig {
+
+    @Value("${app.fast-api.pool.max-total}")
+    private int maxTotal;
+
+    @Value("${app.fast-api.pool.max-per-route}")
+    private int maxPerRoute;
+
+    @Value("${app.fast-api.pool.idle-evict-seconds}")
+    private long idleEvictSeconds;
+
+    @Value("${app.fast-api.timeout.connect-ms}")
+    private long connectTimeoutMs;
+
+    @Value("${app.fast-api.timeout.read-ms}")
+    private long readTimeoutMs;
+
+    @Value("${app.fast-api.timeout.response-ms}")
+    private long responseTimeoutMs;
+
+    @Value("${app.fast-api.timeout.pool-wait-ms}")
+    private long poolWaitTimeoutMs;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager fastApiConnectionManager(MeterRegistry meterRegistry) {
+        var connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .build();
+
+        // httpcomponents.httpclient.pool.* gauges (leased, available, pending)
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "fast-api").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient fastApiHttpClient(PoolingHttpClientConnectionManager fastApiConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(fastApiConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolWaitTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictSeconds))
+                .build();
+    }
+
+    // built from RestTemplateBuilder so actuator records http.client.requests per uri
+    @Bean
+    public RestTemplate fastApiRestTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient fastApiHttpClient) {
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(fastApiHttpClient))
+                .build();
+    }
+}
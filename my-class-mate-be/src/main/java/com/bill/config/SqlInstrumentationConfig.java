@@ -0,0 +1,55 @@
+package com.bill.config;
+
+import com.bill.interceptor.InstrumentedDataSource;
+import com.bill.interceptor.ServiceSqlInterceptor;
+import com.bill.interceptor.SqlMetrics;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+
+// app.sql-instrumentation.enabled=false leaves the DataSource unwrapped and records nothing
+@Configuration
+@ConditionalOnProperty(name = "app.sql-instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlInstrumentationConfig {
+
+    // every statement of hibernate and jdbc template goes through the instrumented pool
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? InstrumentedDataSource.wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    // infrastructure role so the same auto proxy creator as @Transactional applies it, no aspectj needed
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceSqlAdvisor(@Value("${app.sql-instrumentation.services}") Set<String> services,
+                                            ObjectProvider<SqlMetrics> sqlMetrics) {
+        ClassFilter classFilter = clazz -> services.contains(clazz.getSimpleName());
+        var publicMethods = new StaticMethodMatcher() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+            }
+        };
+        return new DefaultPointcutAdvisor(new ComposablePointcut(classFilter, publicMethods), new ServiceSqlInterceptor(sqlMetrics));
+    }
+}
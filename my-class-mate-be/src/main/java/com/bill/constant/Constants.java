@@ -3,6 +3,13 @@ package com.bill.constant;
 public class Constants {
     public static final String PASSWORD_VALUE = "1234";
 
+    public static final int MAX_COURSE_SUMMARY_PAGE_SIZE = 200;
+
+    public static final int LATE_THRESHOLD_MINUTES = 20;
+
+    public static final int EXCEL_ROW_ACCESS_WINDOW = 100;
+    public static final int EXCEL_MAX_COLUMN_WIDTH = 255 * 256;
+
     public static final String EMAIL_SUBJECT_TEMPLATE = "[MyClassmate] สรุปการเข้าเรียนและการมีส่วนร่วม วิชา %s ประจำวันที่ %s";
     public static final String ABSENT_NOTE_TEMPLATE = " (ปัจจุบันอัตราการขาดเรียนคิดเป็นร้อยละ %.2f%% ของชั่วโมงเรียนทั้งหมด)";
     public static final String EMAIL_BODY_TEMPLATE = """
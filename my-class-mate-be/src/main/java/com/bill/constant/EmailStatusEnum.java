@@ -0,0 +1,18 @@
+package com.bill.constant;
+
+public enum EmailStatusEnum {
+    PENDING("รอส่ง"),
+    SENDING("กำลังส่ง"),
+    SENT("ส่งแล้ว"),
+    FAILED("ส่งไม่สำเร็จ");
+
+    public final String desc;
+
+    EmailStatusEnum(String desc) {
+        this.desc = desc;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+}
@@ -9,4 +9,7 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface RequireRole {
     RoleEnum[] value();
+
+    // request parameter read when the X-Role header is missing, for clients that cannot set headers (EventSource)
+    String param() default "";
 }
@@ -48,6 +48,16 @@ public class CourseController {
         return courseService.getCourses(academicYear, semester);
     }
 
+    @RequireRole({RoleEnum.ADMIN, RoleEnum.LECTURER, RoleEnum.STAFF, RoleEnum.STUDENT})
+    @GetMapping(value = "/summary", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CourseSummaryPageResponse getCourseSummaries(@RequestParam(required = false) Integer academicYear,
+                                                        @RequestParam(required = false) Integer semester,
+                                                        @RequestParam(required = false) String courseCodePrefix,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "50") Integer size) {
+        return courseService.getCourseSummaries(academicYear, semester, courseCodePrefix, cursor, size);
+    }
+
     @RequireRole({RoleEnum.ADMIN, RoleEnum.LECTURER, RoleEnum.STAFF})
     @GetMapping(value = "/{courseId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public CourseResponse getCourse(@PathVariable Long courseId) {
@@ -3,6 +3,7 @@ package com.bill.controller;
 import com.bill.constant.RequireRole;
 import com.bill.constant.RoleEnum;
 import com.bill.model.response.AttendanceResponse;
+import com.bill.model.response.BulkAttendanceResponse;
 import com.bill.model.response.FaceRegisterResponse;
 import com.bill.service.FaceService;
 import lombok.AccessLevel;
@@ -39,6 +40,15 @@ public class FaceController {
         return faceService.attendance(courseId, courseScheduleId, file);
     }
 
+    // classroom camera mode, one request carries many frames or cropped faces of the same schedule
+    @RequireRole({RoleEnum.ADMIN, RoleEnum.LECTURER, RoleEnum.STAFF})
+    @PostMapping(value = "/v1/attendance/{courseId}/{courseScheduleId}/batch")
+    public BulkAttendanceResponse bulkAttendance(@PathVariable Long courseId,
+                                                 @PathVariable Long courseScheduleId,
+                                                 @RequestParam("files") List<MultipartFile> files) {
+        return faceService.bulkAttendance(courseId, courseScheduleId, files);
+    }
+
     @RequireRole({RoleEnum.ADMIN, RoleEnum.LECTURER, RoleEnum.STAFF})
     @PostMapping(value = "/v1/attendance/{courseId}/{courseScheduleId}/{studentId}")
     public AttendanceResponse manualAttendance(@PathVariable Long courseId,
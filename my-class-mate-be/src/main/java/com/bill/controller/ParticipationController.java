@@ -5,6 +5,7 @@ import com.bill.constant.RoleEnum;
 import com.bill.model.request.CreateParticipationRequest;
 import com.bill.model.request.EvaluateParticipationRequest;
 import com.bill.model.request.RequestParticipationRequest;
+import com.bill.model.response.EvaluateParticipationResponse;
 import com.bill.model.response.ParticipationResponse;
 import com.bill.model.response.RequestParticipationResponse;
 import com.bill.service.ParticipationService;
@@ -15,6 +16,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -52,13 +54,24 @@ public class ParticipationController {
 
     @RequireRole({RoleEnum.ADMIN, RoleEnum.LECTURER, RoleEnum.STAFF})
     @GetMapping(value = "/requests/{participationId}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<RequestParticipationResponse> getParticipationRequests(@PathVariable Long participationId) {
-        return participationService.getParticipationRequests(participationId);
+    public List<RequestParticipationResponse> getParticipationRequests(@PathVariable Long participationId,
+                                                                       @RequestParam(required = false) Long sinceId) {
+        return participationService.getParticipationRequests(participationId, sinceId);
+    }
+
+    // Last-Event-ID is sent by EventSource on reconnect, same meaning as sinceId,
+    // EventSource cannot send X-Role so the role may come as ?role= instead
+    @RequireRole(value = {RoleEnum.ADMIN, RoleEnum.LECTURER, RoleEnum.STAFF}, param = "role")
+    @GetMapping(value = "/requests/{participationId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamParticipationRequests(@PathVariable Long participationId,
+                                                  @RequestParam(required = false) Long sinceId,
+                                                  @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return participationService.streamParticipationRequests(participationId, lastEventId != null ? lastEventId : sinceId);
     }
 
     @RequireRole({RoleEnum.ADMIN, RoleEnum.LECTURER, RoleEnum.STAFF})
     @PutMapping(value = "/requests/evaluate", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
-    public void evaluateParticipationRequest(@RequestBody @Valid EvaluateParticipationRequest request) {
-        participationService.evaluateParticipationRequest(request);
+    public EvaluateParticipationResponse evaluateParticipationRequest(@RequestBody @Valid EvaluateParticipationRequest request) {
+        return participationService.evaluateParticipationRequest(request);
     }
 }
@@ -12,6 +12,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -29,8 +30,8 @@ public class ReportController {
 
     @RequireRole({RoleEnum.ADMIN, RoleEnum.LECTURER, RoleEnum.STAFF})
     @GetMapping(value = "/course/{courseId}/export", produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-    public ResponseEntity<byte[]> exportReports(@PathVariable Long courseId, @RequestParam(required = false) Long courseScheduleId) {
-        byte[] excelFile = reportService.exportReports(courseId, courseScheduleId);
+    public ResponseEntity<StreamingResponseBody> exportReports(@PathVariable Long courseId, @RequestParam(required = false) Long courseScheduleId) {
+        var excelFile = reportService.exportReports(courseId, courseScheduleId);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=reports.xlsx")
                 .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
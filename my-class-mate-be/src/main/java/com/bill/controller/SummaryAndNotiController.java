@@ -2,6 +2,7 @@ package com.bill.controller;
 
 import com.bill.constant.RequireRole;
 import com.bill.constant.RoleEnum;
+import com.bill.model.response.SummaryResponse;
 import com.bill.service.SummaryAndNotiService;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -21,8 +22,8 @@ public class SummaryAndNotiController {
 
     @RequireRole({RoleEnum.ADMIN})
     @PostMapping(value = "/run")
-    public void triggerScheduler() {
-        summaryAndNotiService.runSummary();
+    public SummaryResponse triggerScheduler() {
+        return summaryAndNotiService.runSummary();
     }
 
 }
@@ -0,0 +1,98 @@
+package com.bill.datagen;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+// rows streamed into one table with COPY ... FROM STDIN (text format), buffered so a few million rows are
+// sent in 64KB writes without being held in memory
+class CopyWriter implements AutoCloseable {
+    private static final int FLUSH_CHARS = 64 * 1024;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final CopyIn copyIn;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 1024);
+    private long rows;
+
+    CopyWriter(Connection connection, String table, String columns) throws SQLException {
+        // through hikari's proxy down to the pgjdbc connection
+        var copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        this.copyIn = copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN");
+    }
+
+    void row(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append('\t');
+            }
+            append(values[i]);
+        }
+        buffer.append('\n');
+        rows++;
+        if (buffer.length() >= FLUSH_CHARS) {
+            flush();
+        }
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private void append(Object value) {
+        if (value == null) {
+            buffer.append("\\N");
+        } else if (value instanceof Boolean bool) {
+            buffer.append(bool ? 't' : 'f');
+        } else if (value instanceof LocalDateTime dateTime) {
+            buffer.append(TIMESTAMP.format(dateTime));
+        } else if (value instanceof LocalDate || value instanceof LocalTime || value instanceof Number) {
+            buffer.append(value);
+        } else if (value instanceof Enum<?> enumValue) {
+            buffer.append(enumValue.name());
+        } else {
+            escape(value.toString());
+        }
+    }
+
+    // backslash, tab and newlines are special in the text format
+    private void escape(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            var c = text.charAt(i);
+            switch (c) {
+                case '\\' -> buffer.append("\\\\");
+                case '\t' -> buffer.append("\\t");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                default -> buffer.append(c);
+            }
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        var bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+}
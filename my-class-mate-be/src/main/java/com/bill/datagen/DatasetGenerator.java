@@ -0,0 +1,506 @@
+package com.bill.datagen;
+
+import com.bill.constant.AttendanceStatusEnum;
+import com.bill.constant.DayEnum;
+import com.bill.constant.ParticipationStatusEnum;
+import com.bill.constant.RoleEnum;
+import com.bill.repository.entity.*;
+import jakarta.persistence.Table;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.bill.constant.Constants.PASSWORD_VALUE;
+
+// faculty scale synthetic data for benchmarks and query plan checks, loaded with COPY into an empty schema:
+// lecturers, students with profiles, courses with lecturers and enrollments, one semester of weekly schedules
+// up to today with attendance, closed participation rounds with requests, and the attendance summaries
+// the same seed and volumes give the same rows (dates are relative to today), ids are assigned here and the id
+// sequences moved past them
+// run: ./mvnw spring-boot:run -Dspring-boot.run.profiles=datagen (volumes under app.datagen)
+@Slf4j
+@Component
+@Profile("datagen")
+public class DatasetGenerator implements ApplicationRunner {
+    private static final LocalTime[] START_TIMES = {
+            LocalTime.of(8, 0), LocalTime.of(9, 30), LocalTime.of(11, 0), LocalTime.of(13, 0), LocalTime.of(14, 30), LocalTime.of(16, 0)};
+    private static final LocalTime SUMMARY_TIME = LocalTime.of(23, 0); // default app.scheduler.cron
+    private static final DayEnum[] DAYS = {DayEnum.MONDAY, DayEnum.TUESDAY, DayEnum.WEDNESDAY, DayEnum.THURSDAY, DayEnum.FRIDAY};
+    private static final List<Class<?>> TABLES = List.of(User.class, StudentProfile.class, Course.class, CourseLecturer.class,
+            Enrollment.class, CourseSchedule.class, Attendance.class, Participation.class, ParticipationRequest.class,
+            AttendanceSummary.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${app.datagen.seed}")
+    private long seed;
+
+    @Value("${app.datagen.students}")
+    private int students;
+
+    @Value("${app.datagen.lecturers}")
+    private int lecturers;
+
+    @Value("${app.datagen.courses}")
+    private int courses;
+
+    @Value("${app.datagen.courses-per-student}")
+    private int coursesPerStudent;
+
+    @Value("${app.datagen.semester-weeks}")
+    private int semesterWeeks;
+
+    @Value("${app.datagen.rounds-per-schedule}")
+    private int roundsPerSchedule;
+
+    @Value("${app.datagen.request-rate}")
+    private double requestRate;
+
+    @Value("${app.datagen.late-rate}")
+    private double lateRate;
+
+    @Value("${app.datagen.absent-rate}")
+    private double absentRate;
+
+    @Value("${app.datagen.truncate}")
+    private boolean truncate;
+
+    @Value("${app.datagen.exit}")
+    private boolean exit;
+
+    // generated course data the later tables are derived from
+    private LocalDateTime now;
+    private LocalDate[] semesterStart;
+    private LocalTime[] startTimes;
+    private long[][] courseStudents;
+    private long[] courseLecturer;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        var startMillis = System.currentTimeMillis();
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            if (!prepare(connection)) {
+                return;
+            }
+
+            plan();
+            copyUsers(connection);
+            copyCourses(connection);
+            copySchedulesAndAttendances(connection);
+            copyParticipations(connection);
+            copyAttendanceSummaries(connection);
+            moveSequences(connection);
+
+            connection.commit();
+            connection.setAutoCommit(true);
+            try (var statement = connection.createStatement()) {
+                // fresh statistics so query plans see the new cardinalities
+                statement.execute("ANALYZE");
+            }
+        }
+        log.info("DatasetGenerator finished, elapsed = {} ms", System.currentTimeMillis() - startMillis);
+
+        if (exit) {
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    private boolean prepare(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            if (truncate) {
+                var tables = TABLES.stream().map(this::tableOf).toList();
+                statement.execute("TRUNCATE " + String.join(", ", tables));
+                return true;
+            }
+
+            try (var resultSet = statement.executeQuery("SELECT EXISTS (SELECT 1 FROM " + tableOf(User.class) + ")")) {
+                resultSet.next();
+                if (resultSet.getBoolean(1)) {
+                    log.warn("DatasetGenerator users is not empty, set app.datagen.truncate=true to replace the data");
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // enrollments, course times and lecturers, from one seeded random in a fixed order
+    private void plan() {
+        var random = new Random(seed);
+        now = LocalDateTime.now().withNano(0);
+        var today = now.toLocalDate();
+
+        semesterStart = new LocalDate[courses];
+        startTimes = new LocalTime[courses];
+        courseLecturer = new long[courses];
+        for (int c = 0; c < courses; c++) {
+            var day = DayOfWeek.valueOf(DAYS[c % DAYS.length].name());
+            semesterStart[c] = today.minusWeeks(semesterWeeks).with(TemporalAdjusters.nextOrSame(day));
+            startTimes[c] = START_TIMES[random.nextInt(START_TIMES.length)];
+            courseLecturer[c] = 1 + random.nextInt(lecturers);
+        }
+
+        // each student takes coursesPerStudent distinct courses
+        var enrolled = new ArrayList<List<Long>>(courses);
+        for (int c = 0; c < courses; c++) {
+            enrolled.add(new ArrayList<>());
+        }
+        var picked = new int[Math.min(coursesPerStudent, courses)];
+        for (int s = 0; s < students; s++) {
+            for (int k = 0; k < picked.length; k++) {
+                int course;
+                do {
+                    course = random.nextInt(courses);
+                } while (contains(picked, k, course));
+                picked[k] = course;
+                enrolled.get(course).add(studentId(s));
+            }
+        }
+        courseStudents = enrolled.stream()
+                .map(ids -> ids.stream().mapToLong(Long::longValue).sorted().toArray())
+                .toArray(long[][]::new);
+    }
+
+    private void copyUsers(Connection connection) throws SQLException {
+        var password = passwordEncoder.encode(PASSWORD_VALUE);
+        try (var users = writer(connection, User.class, "id, username, password, name_th, surname_th, name_en, surname_en, email, role, is_deleted, created_at, updated_at")) {
+            for (int l = 0; l < lecturers; l++) {
+                var user = user(1L + l, "lecturer" + (l + 1), password, RoleEnum.LECTURER);
+                users.row(user.getId(), user.getUsername(), user.getPassword(), user.getNameTh(), user.getSurnameTh(), user.getNameEn(),
+                        user.getSurnameEn(), user.getEmail(), user.getRole(), user.getIsDeleted(), user.getCreatedAt(), user.getUpdatedAt());
+            }
+            for (int s = 0; s < students; s++) {
+                var user = user(studentId(s), "student" + (s + 1), password, RoleEnum.STUDENT);
+                users.row(user.getId(), user.getUsername(), user.getPassword(), user.getNameTh(), user.getSurnameTh(), user.getNameEn(),
+                        user.getSurnameEn(), user.getEmail(), user.getRole(), user.getIsDeleted(), user.getCreatedAt(), user.getUpdatedAt());
+            }
+            log.info("DatasetGenerator users = {}", users.getRows());
+        }
+
+        try (var profiles = writer(connection, StudentProfile.class, "student_id, student_no, address, phone_number, remark, created_at, updated_at")) {
+            for (int s = 0; s < students; s++) {
+                var profile = StudentProfile.builder()
+                        .studentId(studentId(s))
+                        .studentNo(String.format("%02d%07d", (now.getYear() + 543) % 100, s + 1))
+                        .phoneNumber(String.format("08%08d", s))
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build();
+                profiles.row(profile.getStudentId(), profile.getStudentNo(), profile.getAddress(), profile.getPhoneNumber(),
+                        profile.getRemark(), profile.getCreatedAt(), profile.getUpdatedAt());
+            }
+            log.info("DatasetGenerator student_profiles = {}", profiles.getRows());
+        }
+    }
+
+    private void copyCourses(Connection connection) throws SQLException {
+        try (var writer = writer(connection, Course.class, "id, course_code, course_name, academic_year, semester, room, start_time, end_time, day_of_week, start_date, end_date, created_by, created_at, updated_at")) {
+            for (int c = 0; c < courses; c++) {
+                var course = Course.builder()
+                        .id(courseId(c))
+                        .courseCode(String.format("CS%05d", c + 1))
+                        .courseName(String.format("Course %05d", c + 1))
+                        .academicYear(now.getYear() + 543)
+                        .semester(1)
+                        .room(room(c))
+                        .startTime(startTimes[c])
+                        .endTime(startTimes[c].plusMinutes(90))
+                        .dayOfWeek(DAYS[c % DAYS.length])
+                        .startDate(semesterStart[c])
+                        .endDate(semesterStart[c].plusWeeks(semesterWeeks).minusDays(1))
+                        .createdBy(courseLecturer[c])
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build();
+                writer.row(course.getId(), course.getCourseCode(), course.getCourseName(), course.getAcademicYear(), course.getSemester(),
+                        course.getRoom(), course.getStartTime(), course.getEndTime(), course.getDayOfWeek(), course.getStartDate(),
+                        course.getEndDate(), course.getCreatedBy(), course.getCreatedAt(), course.getUpdatedAt());
+            }
+            log.info("DatasetGenerator courses = {}", writer.getRows());
+        }
+
+        try (var writer = writer(connection, CourseLecturer.class, "id, course_id, lecturer_id")) {
+            for (int c = 0; c < courses; c++) {
+                var lecturer = CourseLecturer.builder().id(courseId(c)).courseId(courseId(c)).lecturerId(courseLecturer[c]).build();
+                writer.row(lecturer.getId(), lecturer.getCourseId(), lecturer.getLecturerId());
+            }
+        }
+
+        try (var writer = writer(connection, Enrollment.class, "id, student_id, course_id, created_at")) {
+            long id = 1;
+            for (int c = 0; c < courses; c++) {
+                for (var studentId : courseStudents[c]) {
+                    var enrollment = Enrollment.builder().id(id++).studentId(studentId).courseId(courseId(c)).createdAt(now).build();
+                    writer.row(enrollment.getId(), enrollment.getStudentId(), enrollment.getCourseId(), enrollment.getCreatedAt());
+                }
+            }
+            log.info("DatasetGenerator enrollments = {}", writer.getRows());
+        }
+    }
+
+    // weekly sessions from the semester start up to today. As in the app, a student who did not check in has no row until
+    // the nightly summary writes ABSENT for the session, so sessions before today have one row per enrolled student and
+    // today's session only the students who checked in
+    private void copySchedulesAndAttendances(Connection connection) throws SQLException {
+        try (var writer = writer(connection, CourseSchedule.class, "id, course_id, schedule_date, start_time, end_time, room, remark, created_at, updated_at")) {
+            for (int c = 0; c < courses; c++) {
+                for (int week = 0; week < sessions(c); week++) {
+                    var schedule = CourseSchedule.builder()
+                            .id(scheduleId(c, week))
+                            .courseId(courseId(c))
+                            .scheduleDate(semesterStart[c].plusWeeks(week))
+                            .startTime(startTimes[c])
+                            .endTime(startTimes[c].plusMinutes(90))
+                            .room(room(c))
+                            .createdAt(now)
+                            .updatedAt(now)
+                            .build();
+                    writer.row(schedule.getId(), schedule.getCourseId(), schedule.getScheduleDate(), schedule.getStartTime(), schedule.getEndTime(),
+                            schedule.getRoom(), schedule.getRemark(), schedule.getCreatedAt(), schedule.getUpdatedAt());
+                }
+            }
+            log.info("DatasetGenerator course_schedules = {}", writer.getRows());
+        }
+
+        try (var writer = writer(connection, Attendance.class, "id, student_id, course_id, course_schedule_id, created_at, status, remark")) {
+            long id = 1;
+            for (int c = 0; c < courses; c++) {
+                for (int week = 0; week < sessions(c); week++) {
+                    var scheduleId = scheduleId(c, week);
+                    var scheduleDate = semesterStart[c].plusWeeks(week);
+                    var startAt = scheduleDate.atTime(startTimes[c]);
+                    for (var studentId : courseStudents[c]) {
+                        var status = attendanceStatus(scheduleId, studentId);
+                        LocalDateTime createdAt;
+                        if (status == AttendanceStatusEnum.ABSENT) {
+                            if (!isSummarized(scheduleDate)) {
+                                continue;
+                            }
+                            createdAt = scheduleDate.atTime(SUMMARY_TIME);
+                        } else {
+                            var checkInMinutes = status == AttendanceStatusEnum.LATE ? 20 + uniform(scheduleId, studentId, 1) * 40 : uniform(scheduleId, studentId, 1) * 15;
+                            createdAt = startAt.minusMinutes(5).plusSeconds((long) (checkInMinutes * 60));
+                        }
+                        var attendance = Attendance.builder()
+                                .id(id++)
+                                .studentId(studentId)
+                                .courseId(courseId(c))
+                                .courseScheduleId(scheduleId)
+                                .createdAt(createdAt)
+                                .status(status)
+                                .build();
+                        writer.row(attendance.getId(), attendance.getStudentId(), attendance.getCourseId(), attendance.getCourseScheduleId(),
+                                attendance.getCreatedAt(), attendance.getStatus(), attendance.getRemark());
+                    }
+                }
+            }
+            log.info("DatasetGenerator attendances = {}", writer.getRows());
+        }
+    }
+
+    // closed rounds on every past session, a share of the present students requested and got scored
+    private void copyParticipations(Connection connection) throws SQLException {
+        try (var writer = writer(connection, Participation.class, "id, course_schedule_id, round, topic, status, created_by, created_at, closed_at")) {
+            for (int c = 0; c < courses; c++) {
+                for (int week = 0; week < sessions(c); week++) {
+                    var startAt = semesterStart[c].plusWeeks(week).atTime(startTimes[c]);
+                    for (int round = 1; round <= roundsPerSchedule; round++) {
+                        var participation = Participation.builder()
+                                .id(participationId(c, week, round))
+                                .courseScheduleId(scheduleId(c, week))
+                                .round(round)
+                                .topic("Topic " + round)
+                                .status(ParticipationStatusEnum.CLOSE)
+                                .createdBy(courseLecturer[c])
+                                .createdAt(startAt.plusMinutes(20L * round))
+                                .closedAt(startAt.plusMinutes(20L * round + 5))
+                                .build();
+                        writer.row(participation.getId(), participation.getCourseScheduleId(), participation.getRound(), participation.getTopic(),
+                                participation.getStatus(), participation.getCreatedBy(), participation.getCreatedAt(), participation.getClosedAt());
+                    }
+                }
+            }
+            log.info("DatasetGenerator participations = {}", writer.getRows());
+        }
+
+        try (var writer = writer(connection, ParticipationRequest.class, "id, participation_id, student_id, created_at, is_scored, score")) {
+            long id = 1;
+            for (int c = 0; c < courses; c++) {
+                for (int week = 0; week < sessions(c); week++) {
+                    var scheduleId = scheduleId(c, week);
+                    var startAt = semesterStart[c].plusWeeks(week).atTime(startTimes[c]);
+                    for (int round = 1; round <= roundsPerSchedule; round++) {
+                        var participationId = participationId(c, week, round);
+                        for (var studentId : courseStudents[c]) {
+                            if (attendanceStatus(scheduleId, studentId) == AttendanceStatusEnum.ABSENT
+                                    || uniform(participationId, studentId, 2) >= requestRate) {
+                                continue;
+                            }
+                            var request = ParticipationRequest.builder()
+                                    .id(id++)
+                                    .participationId(participationId)
+                                    .studentId(studentId)
+                                    .createdAt(startAt.plusMinutes(20L * round).plusSeconds((long) (uniform(participationId, studentId, 3) * 300)))
+                                    .isScored(true)
+                                    .score(1 + (int) (uniform(participationId, studentId, 4) * 3))
+                                    .build();
+                            writer.row(request.getId(), request.getParticipationId(), request.getStudentId(), request.getCreatedAt(),
+                                    request.getIsScored(), request.getScore());
+                        }
+                    }
+                }
+            }
+            log.info("DatasetGenerator participation_requests = {}", writer.getRows());
+        }
+    }
+
+    // totals as of the last nightly summary, today's session is not counted yet
+    private void copyAttendanceSummaries(Connection connection) throws SQLException {
+        try (var writer = writer(connection, AttendanceSummary.class, "id, student_id, course_id, total_present, total_late, total_absent, created_at, updated_at")) {
+            long id = 1;
+            for (int c = 0; c < courses; c++) {
+                for (var studentId : courseStudents[c]) {
+                    var totals = new int[AttendanceStatusEnum.values().length];
+                    for (int week = 0; week < sessions(c); week++) {
+                        if (isSummarized(semesterStart[c].plusWeeks(week))) {
+                            totals[attendanceStatus(scheduleId(c, week), studentId).ordinal()]++;
+                        }
+                    }
+                    var summary = AttendanceSummary.builder()
+                            .id(id++)
+                            .studentId(studentId)
+                            .courseId(courseId(c))
+                            .totalPresent(totals[AttendanceStatusEnum.PRESENT.ordinal()])
+                            .totalLate(totals[AttendanceStatusEnum.LATE.ordinal()])
+                            .totalAbsent(totals[AttendanceStatusEnum.ABSENT.ordinal()])
+                            .createdAt(now)
+                            .updatedAt(now)
+                            .build();
+                    writer.row(summary.getId(), summary.getStudentId(), summary.getCourseId(), summary.getTotalPresent(), summary.getTotalLate(),
+                            summary.getTotalAbsent(), summary.getCreatedAt(), summary.getUpdatedAt());
+                }
+            }
+            log.info("DatasetGenerator attendance_summaries = {}", writer.getRows());
+        }
+    }
+
+    // ids were set explicitly, the app's pooled sequences continue after them
+    private void moveSequences(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            for (var entity : TABLES) {
+                if (entity == StudentProfile.class) {
+                    continue;
+                }
+                var table = tableOf(entity);
+                statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), coalesce((SELECT max(id) FROM " + table + "), 1))");
+            }
+        }
+    }
+
+    private CopyWriter writer(Connection connection, Class<?> entity, String columns) throws SQLException {
+        return new CopyWriter(connection, tableOf(entity), columns);
+    }
+
+    private String tableOf(Class<?> entity) {
+        return entity.getAnnotation(Table.class).name();
+    }
+
+    private User user(long id, String username, String password, RoleEnum role) {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .password(password)
+                .nameTh("ชื่อ" + id)
+                .surnameTh("นามสกุล" + id)
+                .nameEn("Name" + id)
+                .surnameEn("Surname" + id)
+                .email(username + "@example.com")
+                .role(role)
+                .isDeleted(false)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    // same (scheduleId, studentId) always gives the same status, so the attendance, participation and summary
+    // passes agree without keeping a semester of attendance in memory
+    private AttendanceStatusEnum attendanceStatus(long scheduleId, long studentId) {
+        var value = uniform(scheduleId, studentId, 0);
+        if (value < absentRate) {
+            return AttendanceStatusEnum.ABSENT;
+        }
+        return value < absentRate + lateRate ? AttendanceStatusEnum.LATE : AttendanceStatusEnum.PRESENT;
+    }
+
+    // splitmix64 of the seed and the keys, uniform in [0, 1)
+    private double uniform(long a, long b, long salt) {
+        var x = seed ^ (a * 0x9E3779B97F4A7C15L) ^ (b * 0xC2B2AE3D27D4EB4FL) ^ (salt * 0x165667B19E3779F9L);
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        x = x ^ (x >>> 31);
+        return (x >>> 11) * 0x1.0p-53;
+    }
+
+    // weekly sessions of the course that already took place
+    private int sessions(int course) {
+        var weeks = (int) ((now.toLocalDate().toEpochDay() - semesterStart[course].toEpochDay()) / 7) + 1;
+        return Math.max(0, Math.min(semesterWeeks, weeks));
+    }
+
+    // the nightly summary has run for the session
+    private boolean isSummarized(LocalDate scheduleDate) {
+        return scheduleDate.isBefore(now.toLocalDate());
+    }
+
+    private long studentId(int student) {
+        return lecturers + 1L + student;
+    }
+
+    private long courseId(int course) {
+        return course + 1L;
+    }
+
+    private long scheduleId(int course, int week) {
+        return (long) course * semesterWeeks + week + 1;
+    }
+
+    private long participationId(int course, int week, int round) {
+        return (scheduleId(course, week) - 1) * roundsPerSchedule + round;
+    }
+
+    private String room(int course) {
+        return String.format("R%03d", course % 200 + 1);
+    }
+
+    private boolean contains(int[] values, int length, int value) {
+        return Arrays.stream(values, 0, length).anyMatch(v -> v == value);
+    }
+}
@@ -33,6 +33,7 @@ public enum ErrorEnum {
     ERROR_PARTICIPATION_CLOSED("ERR026", "การมีส่วนร่วมปิดแล้ว"),
     ERROR_STUDENT_ATTENDANCE_NOT_FOUND("ERR027", "ไม่สามารถส่งคำขอได้เนื่องจากไม่มีข้อมูลการเช็คชื่อเข้าเรียน (studentId: %s, courseScheduleId: %s)"),
     ERROR_PARTICIPATION_REQUEST_NOT_FOUND("ERR028", "ไม่พบข้อมูลคำขอการมีส่วนร่วม participationRequestId: %s"),
+    ERROR_PARTICIPATION_BUSY("ERR029", "มีคำขอการมีส่วนร่วมจำนวนมาก โปรดลองใหม่อีกครั้ง"),
     ;
 
     private final String code;
@@ -0,0 +1,113 @@
+package com.bill.interceptor;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+// jdk proxies around the pool's connections, statements and result sets that report every execute and every fetched
+// or updated row to SqlStatistics, covers hibernate and jdbc template alike, unwrap() still reaches the real objects
+public final class InstrumentedDataSource {
+
+    private InstrumentedDataSource() {
+    }
+
+    public static DataSource wrap(DataSource dataSource) {
+        // keep close() visible so the pool is still shut down with the context
+        var interfaces = dataSource instanceof Closeable
+                ? new Class<?>[]{DataSource.class, Closeable.class}
+                : new Class<?>[]{DataSource.class};
+        return (DataSource) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), interfaces, (proxy, method, args) -> {
+            var result = invoke(proxy, dataSource, method, args);
+            return result instanceof Connection connection ? wrapConnection(connection) : result;
+        });
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            var result = invoke(proxy, connection, method, args);
+            if (result instanceof Statement statement && method.getName().startsWith("prepare")) {
+                return wrapStatement(statement, method.getReturnType(), (String) args[0]);
+            }
+            if (result instanceof Statement statement) {
+                return wrapStatement(statement, method.getReturnType(), null);
+            }
+            return result;
+        });
+    }
+
+    // sql is known for prepared statements, a plain statement passes it to execute
+    private static Object wrapStatement(Statement statement, Class<?> type, String preparedSql) {
+        return Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            var name = method.getName();
+            if (!name.startsWith("execute")) {
+                var result = invoke(proxy, statement, method, args);
+                return result instanceof ResultSet resultSet ? wrapResultSet(resultSet) : result;
+            }
+
+            var sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            var startNanos = System.nanoTime();
+            try {
+                var result = invoke(proxy, statement, method, args);
+                if (result instanceof ResultSet resultSet) {
+                    return wrapResultSet(resultSet);
+                }
+                SqlStatistics.recordRows(updatedRows(result));
+                return result;
+            } finally {
+                SqlStatistics.recordStatement(sql, System.nanoTime() - startNanos);
+            }
+        });
+    }
+
+    private static ResultSet wrapResultSet(ResultSet resultSet) {
+        return (ResultSet) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            var result = invoke(proxy, resultSet, method, args);
+            if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+                SqlStatistics.recordRows(1);
+            }
+            return result;
+        });
+    }
+
+    // execute() returns a boolean, batches return one count per statement, negative counts mean unknown
+    private static long updatedRows(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof Long count) {
+            return Math.max(count, 0);
+        }
+        long rows = 0;
+        if (result instanceof int[] counts) {
+            for (var count : counts) {
+                rows += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (var count : counts) {
+                rows += Math.max(count, 0);
+            }
+        }
+        return rows;
+    }
+
+    // identity of the proxy itself, everything else goes to the target
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -28,6 +28,9 @@ public class RoleInterceptor implements HandlerInterceptor {
         }
 
         String roleHeader = request.getHeader("X-Role");
+        if (roleHeader == null && !annotation.param().isEmpty()) {
+            roleHeader = request.getParameter(annotation.param());
+        }
         if (roleHeader == null) {
             throw new AppException(ERROR_MISSING_HEADER_ROLE.getCode(), ERROR_MISSING_HEADER_ROLE.getMessage());
         }
@@ -0,0 +1,26 @@
+package com.bill.interceptor;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+// SqlStatistics scope around a public service method, recorded as ClassName.method
+public class ServiceSqlInterceptor implements MethodInterceptor {
+    private final ObjectProvider<SqlMetrics> sqlMetrics;
+
+    public ServiceSqlInterceptor(ObjectProvider<SqlMetrics> sqlMetrics) {
+        this.sqlMetrics = sqlMetrics;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        var statistics = SqlStatistics.open(false);
+        try {
+            return invocation.proceed();
+        } finally {
+            statistics.close();
+            var method = invocation.getMethod();
+            sqlMetrics.getObject().record("service", method.getDeclaringClass().getSimpleName() + "." + method.getName(), statistics);
+        }
+    }
+}
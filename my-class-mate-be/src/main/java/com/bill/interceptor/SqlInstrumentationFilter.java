@@ -0,0 +1,84 @@
+package com.bill.interceptor;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+// one SqlStatistics scope per http request, recorded by endpoint pattern, with response-header on (dev profile)
+// the X-Sql-Statements response header carries the count so far when the body starts
+@Component
+@ConditionalOnProperty(name = "app.sql-instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlInstrumentationFilter extends OncePerRequestFilter {
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+
+    @Autowired
+    private SqlMetrics sqlMetrics;
+
+    @Value("${app.sql-instrumentation.response-header}")
+    private boolean responseHeader;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        var headerResponse = responseHeader ? new StatementCountResponse(response) : null;
+        var statistics = SqlStatistics.open(true);
+        try {
+            filterChain.doFilter(request, headerResponse != null ? headerResponse : response);
+            // no body written, e.g. void endpoints
+            if (headerResponse != null) {
+                headerResponse.addStatementCountHeader();
+            }
+        } finally {
+            statistics.close();
+            var pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            var name = request.getMethod() + " " + (pattern != null ? pattern : "UNKNOWN");
+            sqlMetrics.record("http", name, statistics);
+            sqlMetrics.detectNPlusOne(name, statistics);
+        }
+    }
+
+    private static class StatementCountResponse extends HttpServletResponseWrapper {
+        private boolean headerAdded;
+
+        StatementCountResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void addStatementCountHeader() {
+            if (!headerAdded && !isCommitted()) {
+                setHeader(STATEMENTS_HEADER, String.valueOf(SqlStatistics.currentStatements()));
+            }
+            headerAdded = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addStatementCountHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addStatementCountHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addStatementCountHeader();
+            super.flushBuffer();
+        }
+    }
+}
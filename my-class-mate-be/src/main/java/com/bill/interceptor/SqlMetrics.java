@@ -0,0 +1,59 @@
+package com.bill.interceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// sql.statements, sql.rows and sql.time per http endpoint (scope=http) or service method (scope=service),
+// sql.n.plus.one.suspected counts statement shapes repeated within one request
+@Slf4j
+@Component
+public class SqlMetrics {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.sql-instrumentation.n-plus-one-threshold}")
+    private int nPlusOneThreshold;
+
+    public void record(String scope, String name, SqlStatistics.Scope statistics) {
+        var tags = Tags.of("scope", scope, "name", name);
+        // bounded so the histogram has the buckets of 1 to 1000 statements instead of the whole long range,
+        // the objectives mark a simple read (5), a page with its lookups (20) and the n+1 range (100)
+        DistributionSummary.builder("sql.statements")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(1000.0)
+                .serviceLevelObjectives(5, 20, 100)
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder("sql.rows")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(statistics.getRows());
+        Timer.builder("sql.time")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void detectNPlusOne(String name, SqlStatistics.Scope statistics) {
+        statistics.getShapes().forEach((shape, count) -> {
+            if (count >= nPlusOneThreshold) {
+                Counter.builder("sql.n.plus.one.suspected")
+                        .tags("name", name)
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("SqlMetrics suspected n+1 in {}, {} executions of: {}", name, count, shape);
+            }
+        });
+    }
+}
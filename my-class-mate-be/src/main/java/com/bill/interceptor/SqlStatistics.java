@@ -0,0 +1,106 @@
+package com.bill.interceptor;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// statements, rows and db time of the current thread, counted into every open scope (http request, service method,
+// test capture) so nested scopes each see their own total, statement shapes are kept for n+1 detection
+public final class SqlStatistics {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final ThreadLocal<ArrayDeque<Scope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private SqlStatistics() {
+    }
+
+    // must be closed in finally by the same thread
+    public static Scope open(boolean trackShapes) {
+        var scope = new Scope(trackShapes);
+        SCOPES.get().push(scope);
+        return scope;
+    }
+
+    // statement count of the innermost scope, 0 outside any scope
+    public static int currentStatements() {
+        var scope = SCOPES.get().peek();
+        return scope != null ? scope.statements : 0;
+    }
+
+    static void recordStatement(String sql, long nanos) {
+        var scopes = SCOPES.get();
+        if (scopes.isEmpty()) {
+            return;
+        }
+
+        String shape = null;
+        for (var scope : scopes) {
+            scope.statements++;
+            scope.nanos += nanos;
+            if (scope.shapes != null) {
+                shape = shape != null ? shape : shapeOf(sql);
+                scope.shapes.merge(shape, 1, Integer::sum);
+            }
+        }
+    }
+
+    static void recordRows(long rows) {
+        for (var scope : SCOPES.get()) {
+            scope.rows += rows;
+        }
+    }
+
+    // literals and expanded in-lists replaced so the same query with other values has the same shape
+    static String shapeOf(String sql) {
+        if (sql == null) {
+            return "batch";
+        }
+        var shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = PARAMETER_LIST.matcher(shape).replaceAll("?...");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final long startNanos = System.nanoTime();
+        private final Map<String, Integer> shapes;
+        private int statements;
+        private long rows;
+        private long nanos;
+
+        private Scope(boolean trackShapes) {
+            this.shapes = trackShapes ? new HashMap<>() : null;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        // time spent executing statements
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getElapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+
+        // shape -> executions, empty when shapes are not tracked
+        public Map<String, Integer> getShapes() {
+            return shapes != null ? shapes : Map.of();
+        }
+
+        @Override
+        public void close() {
+            SCOPES.get().remove(this);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.bill.model;
+
+import com.bill.constant.AttendanceStatusEnum;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class StudentSummaryDto {
+    Long studentId;
+    String email;
+    String studentNameTh;
+    AttendanceStatusEnum todayStatus;
+    Integer totalPresent;
+    Integer totalLate;
+    Integer totalAbsent;
+    Integer todayParticipations;
+    Integer todayScore;
+    Integer totalParticipations;
+    Integer totalScore;
+}
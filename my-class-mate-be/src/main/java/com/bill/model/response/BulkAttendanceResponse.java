@@ -0,0 +1,34 @@
+package com.bill.model.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BulkAttendanceResponse {
+    Long courseId;
+    Long courseScheduleId;
+    String courseCode;
+    int totalFaces;
+    int recognizedFaces;
+    int insertedRow;
+    List<FaceAttendanceResult> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FaceAttendanceResult {
+        int index;
+        String fileName;
+        boolean success;
+        String errorCode;
+        String errorMessage;
+        AttendanceResponse attendance;
+    }
+}
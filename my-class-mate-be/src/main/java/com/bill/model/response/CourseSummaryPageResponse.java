@@ -0,0 +1,16 @@
+package com.bill.model.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CourseSummaryPageResponse {
+    List<CourseSummaryResponse> courses;
+    String nextCursor; // courseCode of last item, null when no more page
+}
@@ -0,0 +1,27 @@
+package com.bill.model.response;
+
+import com.bill.constant.DayEnum;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CourseSummaryResponse {
+    Long courseId;
+    String courseCode;
+    String courseName;
+    Integer academicYear;
+    Integer semester;
+    String room;
+    DayEnum dayOfWeek;
+    LocalTime startTime;
+    LocalTime endTime;
+    Integer totalLecturers;
+    Integer totalSchedules;
+    Integer totalEnrollments;
+}
@@ -0,0 +1,17 @@
+package com.bill.model.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EvaluateParticipationResponse {
+    int scoredRow;
+    int alreadyScoredRow;
+    List<Long> notFoundParticipationRequestIds;
+}
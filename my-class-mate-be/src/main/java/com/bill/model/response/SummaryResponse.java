@@ -0,0 +1,17 @@
+package com.bill.model.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SummaryResponse {
+    int totalSchedules;
+    int insertedAbsentRow;
+    int summarizedRow;
+    int notifiedRow;
+    long elapsedMillis;
+}
@@ -0,0 +1,141 @@
+package com.bill.repository;
+
+import com.bill.repository.entity.Attendance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+
+@Repository
+public class AttendanceJdbcRepository {
+    @Autowired
+    NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // public for QueryPlanRegressionTest, the lookup behind every check-in that finds its row already written
+    public static final String FIND_ATTENDANCE =
+            "select * from attendances where student_id = :studentId and course_schedule_id = :courseScheduleId";
+
+    // single round trip check-in: insert the first attendance or return the existing one, duplicates are
+    // impossible because of the unique (student_id, course_schedule_id) index
+    public Attendance insertIfAbsent(Attendance attendance) {
+        var sql = """
+                with inserted as (
+                    insert into attendances (student_id, course_id, course_schedule_id, created_at, status, remark)
+                    values (:studentId, :courseId, :courseScheduleId, :createdAt, :status, :remark)
+                    on conflict (student_id, course_schedule_id) do nothing
+                    returning *
+                )
+                select * from inserted
+                union all
+                select * from attendances
+                where student_id = :studentId and course_schedule_id = :courseScheduleId
+                and not exists (select 1 from inserted)
+                """;
+        var param = toParam(attendance);
+
+        var rows = namedParameterJdbcTemplate.query(sql, param, new BeanPropertyRowMapper<>(Attendance.class));
+        if (!rows.isEmpty()) {
+            return rows.get(0);
+        }
+
+        // conflicting row was committed by a concurrent check-in after this statement's snapshot, read it again
+        return findAttendance(attendance.getStudentId(), attendance.getCourseScheduleId());
+    }
+
+    // manual check-in by lecturer: insert with remark, or set the remark of the existing attendance
+    public Attendance upsertRemark(Attendance attendance) {
+        var sql = """
+                insert into attendances (student_id, course_id, course_schedule_id, created_at, status, remark)
+                values (:studentId, :courseId, :courseScheduleId, :createdAt, :status, :remark)
+                on conflict (student_id, course_schedule_id) do update set remark = excluded.remark
+                returning *
+                """;
+        var param = toParam(attendance);
+
+        return namedParameterJdbcTemplate.queryForObject(sql, param, new BeanPropertyRowMapper<>(Attendance.class));
+    }
+
+    // one multi-row insert for the whole batch, returns only inserted rows, students already checked in are skipped
+    public List<Attendance> insertAttendances(List<Attendance> attendances) {
+        if (attendances.isEmpty()) {
+            return List.of();
+        }
+
+        var values = new StringJoiner(", ");
+        var param = new MapSqlParameterSource();
+        for (int i = 0; i < attendances.size(); i++) {
+            var attendance = attendances.get(i);
+            values.add(String.format("(:studentId%1$d, :courseId%1$d, :courseScheduleId%1$d, :createdAt%1$d, :status%1$d, :remark%1$d)", i));
+            param.addValue("studentId" + i, attendance.getStudentId())
+                    .addValue("courseId" + i, attendance.getCourseId())
+                    .addValue("courseScheduleId" + i, attendance.getCourseScheduleId())
+                    .addValue("createdAt" + i, attendance.getCreatedAt())
+                    .addValue("status" + i, attendance.getStatus().name())
+                    .addValue("remark" + i, attendance.getRemark());
+        }
+
+        var sql = "insert into attendances (student_id, course_id, course_schedule_id, created_at, status, remark) values "
+                + values + " on conflict (student_id, course_schedule_id) do nothing returning *";
+
+        return namedParameterJdbcTemplate.query(sql, param, new BeanPropertyRowMapper<>(Attendance.class));
+    }
+
+    // insert ABSENT for every enrolled student without attendance in this schedule
+    public int insertAbsentAttendances(Long courseId, Long courseScheduleId, LocalDateTime now) {
+        var sql = """
+                insert into attendances (student_id, course_id, course_schedule_id, created_at, status)
+                select e.student_id, e.course_id, :courseScheduleId, :now, 'ABSENT'
+                from enrollments e
+                where e.course_id = :courseId
+                on conflict (student_id, course_schedule_id) do nothing
+                """;
+        var param = new MapSqlParameterSource()
+                .addValue("courseId", courseId)
+                .addValue("courseScheduleId", courseScheduleId)
+                .addValue("now", now);
+
+        return namedParameterJdbcTemplate.update(sql, param);
+    }
+
+    public List<Attendance> findAttendances(Long courseScheduleId, Collection<Long> studentIds) {
+        var sql = "select * from attendances where course_schedule_id = :courseScheduleId and student_id in (:studentIds)";
+        var param = new MapSqlParameterSource()
+                .addValue("courseScheduleId", courseScheduleId)
+                .addValue("studentIds", studentIds);
+
+        return namedParameterJdbcTemplate.query(sql, param, new BeanPropertyRowMapper<>(Attendance.class));
+    }
+
+    // students with any attendance in the schedule, the same rule as participation request validation
+    public List<Long> findStudentIds(Long courseScheduleId) {
+        var sql = "select student_id from attendances where course_schedule_id = :courseScheduleId";
+        var param = new MapSqlParameterSource()
+                .addValue("courseScheduleId", courseScheduleId);
+
+        return namedParameterJdbcTemplate.queryForList(sql, param, Long.class);
+    }
+
+    private Attendance findAttendance(Long studentId, Long courseScheduleId) {
+        var param = new MapSqlParameterSource()
+                .addValue("studentId", studentId)
+                .addValue("courseScheduleId", courseScheduleId);
+
+        return namedParameterJdbcTemplate.queryForObject(FIND_ATTENDANCE, param, new BeanPropertyRowMapper<>(Attendance.class));
+    }
+
+    private MapSqlParameterSource toParam(Attendance attendance) {
+        return new MapSqlParameterSource()
+                .addValue("studentId", attendance.getStudentId())
+                .addValue("courseId", attendance.getCourseId())
+                .addValue("courseScheduleId", attendance.getCourseScheduleId())
+                .addValue("createdAt", attendance.getCreatedAt())
+                .addValue("status", attendance.getStatus().name())
+                .addValue("remark", attendance.getRemark());
+    }
+}
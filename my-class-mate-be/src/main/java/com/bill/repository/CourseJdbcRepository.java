@@ -1,5 +1,6 @@
 package com.bill.repository;
 
+import com.bill.model.response.CourseSummaryResponse;
 import com.bill.repository.entity.Course;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
@@ -33,4 +34,73 @@ public class CourseJdbcRepository {
 
         return namedParameterJdbcTemplate.query(sql.toString(), param, new BeanPropertyRowMapper<>(Course.class));
     }
+
+    // keyset page ordered by course_code, counts are grouped only for courses in the page
+    public List<CourseSummaryResponse> findCourseSummaries(Integer academicYear, Integer semester, String courseCodePrefix, String afterCourseCode, int limit) {
+        var sql = new StringJoiner(" ");
+        var param = new MapSqlParameterSource();
+        sql.add("with page as (");
+        sql.add("select id, course_code, course_name, academic_year, semester, room, day_of_week, start_time, end_time");
+        sql.add("from courses where 1 = 1");
+
+        if (academicYear != null) {
+            sql.add("and academic_year = :academicYear");
+            param.addValue("academicYear", academicYear);
+        }
+
+        if (semester != null) {
+            sql.add("and semester = :semester");
+            param.addValue("semester", semester);
+        }
+
+        if (courseCodePrefix != null) {
+            sql.add("and course_code like :courseCodePrefix");
+            param.addValue("courseCodePrefix", escapeLike(courseCodePrefix) + "%");
+        }
+
+        if (afterCourseCode != null) {
+            sql.add("and course_code > :afterCourseCode");
+            param.addValue("afterCourseCode", afterCourseCode);
+        }
+
+        sql.add("order by course_code limit :limit");
+        sql.add(")");
+        param.addValue("limit", limit);
+
+        sql.add("""
+                select
+                    p.id as course_id,
+                    p.course_code,
+                    p.course_name,
+                    p.academic_year,
+                    p.semester,
+                    p.room,
+                    p.day_of_week,
+                    p.start_time,
+                    p.end_time,
+                    coalesce(cl.total, 0) as total_lecturers,
+                    coalesce(cs.total, 0) as total_schedules,
+                    coalesce(e.total, 0) as total_enrollments
+                from page p
+                left join (
+                    select course_id, count(*) as total from course_lecturers
+                    where course_id in (select id from page) group by course_id
+                ) cl on cl.course_id = p.id
+                left join (
+                    select course_id, count(*) as total from course_schedules
+                    where course_id in (select id from page) group by course_id
+                ) cs on cs.course_id = p.id
+                left join (
+                    select course_id, count(*) as total from enrollments
+                    where course_id in (select id from page) group by course_id
+                ) e on e.course_id = p.id
+                order by p.course_code
+                """);
+
+        return namedParameterJdbcTemplate.query(sql.toString(), param, new BeanPropertyRowMapper<>(CourseSummaryResponse.class));
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
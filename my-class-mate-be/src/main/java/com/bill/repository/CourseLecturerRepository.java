@@ -4,6 +4,7 @@ import com.bill.repository.entity.CourseLecturer;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +12,6 @@ public interface CourseLecturerRepository extends JpaRepository<CourseLecturer,
     void deleteByCourseId(Long courseId);
 
     List<CourseLecturer> findByCourseId(Long courseId);
+
+    List<CourseLecturer> findByCourseIdIn(Collection<Long> courseIds);
 }
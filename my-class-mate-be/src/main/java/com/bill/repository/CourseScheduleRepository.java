@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,8 +17,12 @@ public interface CourseScheduleRepository extends JpaRepository<CourseSchedule,
 
     List<CourseSchedule> findByCourseIdOrderByScheduleDateAsc(Long courseId);
 
+    List<CourseSchedule> findByCourseIdInOrderByScheduleDateAsc(Collection<Long> courseIds);
+
     List<CourseSchedule> findByScheduleDateOrderByStartTimeAsc(LocalDate scheduleDate);
 
+    long countByCourseId(Long courseId);
+
     @Query(value = """
             select a.id as courseScheduleId, a.course_id, a.schedule_date, coalesce(b.status, 'ABSENT') as status
             from course_schedules a
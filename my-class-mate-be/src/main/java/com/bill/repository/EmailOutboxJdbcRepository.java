@@ -0,0 +1,82 @@
+package com.bill.repository;
+
+import com.bill.repository.entity.EmailOutbox;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class EmailOutboxJdbcRepository {
+    @Autowired
+    NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // public for QueryPlanRegressionTest, which explains the claim as it is sent
+    public static final String CLAIM_BATCH = """
+            update email_outboxes set status = 'SENDING', next_attempt_at = :leaseUntil,
+                attempt_count = case when status = 'SENDING' then attempt_count + 1 else attempt_count end
+            where id in (
+                select id from email_outboxes
+                where status in ('PENDING', 'SENDING') and next_attempt_at <= :now
+                order by id
+                limit :batchSize
+                for update skip locked
+            )
+            returning *
+            """;
+
+    // claim due emails in one statement, claimed rows are leased until leaseUntil so a crashed worker's rows are picked up again,
+    // a SENDING row claimed again had its lease expire, which counts as a failed attempt
+    public List<EmailOutbox> claimBatch(int batchSize, LocalDateTime now, LocalDateTime leaseUntil) {
+        var param = new MapSqlParameterSource()
+                .addValue("batchSize", batchSize)
+                .addValue("now", now)
+                .addValue("leaseUntil", leaseUntil);
+
+        return namedParameterJdbcTemplate.query(CLAIM_BATCH, param, new BeanPropertyRowMapper<>(EmailOutbox.class));
+    }
+
+    public int markSent(Collection<Long> ids, LocalDateTime now) {
+        var sql = """
+                update email_outboxes set status = 'SENT', sent_at = :now, last_error = null
+                where id in (:ids)
+                """;
+        var param = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("now", now);
+
+        return namedParameterJdbcTemplate.update(sql, param);
+    }
+
+    public int markRetry(Long id, int attemptCount, LocalDateTime nextAttemptAt, String lastError) {
+        var sql = """
+                update email_outboxes set status = 'PENDING', attempt_count = :attemptCount, next_attempt_at = :nextAttemptAt, last_error = :lastError
+                where id = :id
+                """;
+        var param = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("attemptCount", attemptCount)
+                .addValue("nextAttemptAt", nextAttemptAt)
+                .addValue("lastError", lastError);
+
+        return namedParameterJdbcTemplate.update(sql, param);
+    }
+
+    public int markFailed(Long id, int attemptCount, String lastError) {
+        var sql = """
+                update email_outboxes set status = 'FAILED', attempt_count = :attemptCount, last_error = :lastError
+                where id = :id
+                """;
+        var param = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("attemptCount", attemptCount)
+                .addValue("lastError", lastError);
+
+        return namedParameterJdbcTemplate.update(sql, param);
+    }
+}
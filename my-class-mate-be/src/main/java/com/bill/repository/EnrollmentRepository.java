@@ -2,16 +2,24 @@ package com.bill.repository;
 
 import com.bill.repository.entity.Enrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     List<Enrollment> findByCourseIdOrderByCreatedAtAsc(Long courseId);
 
+    List<Enrollment> findByCourseIdInOrderByCreatedAtAsc(Collection<Long> courseIds);
+
     void deleteByCourseId(Long courseId);
 
     Optional<Enrollment> findByStudentIdAndCourseId(Long studentId, Long courseId);
+
+    @Query("select e.studentId from Enrollment e where e.courseId = :courseId")
+    Set<Long> findStudentIdsByCourseId(Long courseId);
 }
@@ -0,0 +1,169 @@
+package com.bill.repository;
+
+import com.bill.model.response.EvaluateParticipationResponse;
+import com.bill.model.response.RequestParticipationResponse;
+import com.bill.repository.entity.Participation;
+import com.bill.repository.entity.ParticipationRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+@Repository
+public class ParticipationJdbcRepository {
+    @Autowired
+    NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private static final String SELECT_REQUEST = """
+            select
+                pr.id as participation_request_id,
+                pr.participation_id,
+                pr.student_id,
+                sp.student_no,
+                u.name_th || ' ' || u.surname_th as student_name_th,
+                u.name_en || ' ' || u.surname_en as student_name_en,
+                pr.created_at,
+                pr.is_scored,
+                pr.score
+            """;
+
+    private static final String JOIN_STUDENT = """
+            left join users u on u.id = pr.student_id
+            left join student_profiles sp on sp.student_id = pr.student_id
+            """;
+
+    // next round of the schedule allocated by the insert itself, the unique (course_schedule_id, round) index rejects a
+    // concurrent create of the same round, null when the schedule does not exist or the round was taken
+    public Participation insertNextRound(Participation participation) {
+        var sql = """
+                insert into participations (course_schedule_id, round, topic, status, created_by, created_at)
+                select cs.id,
+                       coalesce((select max(p.round) from participations p where p.course_schedule_id = cs.id), 0) + 1,
+                       :topic, :status, :createdBy, :createdAt
+                from course_schedules cs
+                where cs.id = :courseScheduleId
+                on conflict (course_schedule_id, round) do nothing
+                returning *
+                """;
+        var param = new MapSqlParameterSource()
+                .addValue("courseScheduleId", participation.getCourseScheduleId())
+                .addValue("topic", participation.getTopic())
+                .addValue("status", participation.getStatus().name())
+                .addValue("createdBy", participation.getCreatedBy())
+                .addValue("createdAt", participation.getCreatedAt());
+
+        return namedParameterJdbcTemplate.query(sql, param, new BeanPropertyRowMapper<>(Participation.class))
+                .stream().findFirst().orElse(null);
+    }
+
+    // requests of a round with student no and names in one query, sinceId returns only rows after the last one a poller has seen
+    public List<RequestParticipationResponse> findParticipationRequests(Long participationId, Long sinceId) {
+        var sql = new StringJoiner(" ");
+        var param = new MapSqlParameterSource();
+        sql.add(SELECT_REQUEST);
+        sql.add("from participation_requests pr");
+        sql.add(JOIN_STUDENT);
+        sql.add("where pr.participation_id = :participationId");
+        param.addValue("participationId", participationId);
+
+        if (sinceId != null) {
+            sql.add("and pr.id > :sinceId");
+            param.addValue("sinceId", sinceId);
+        }
+
+        sql.add("order by pr.created_at, pr.id");
+
+        return namedParameterJdbcTemplate.query(sql.toString(), param, new BeanPropertyRowMapper<>(RequestParticipationResponse.class));
+    }
+
+    public RequestParticipationResponse findParticipationRequest(Long participationId, Long studentId) {
+        var sql = SELECT_REQUEST + " from participation_requests pr " + JOIN_STUDENT
+                + " where pr.participation_id = :participationId and pr.student_id = :studentId";
+        var param = new MapSqlParameterSource()
+                .addValue("participationId", participationId)
+                .addValue("studentId", studentId);
+
+        return namedParameterJdbcTemplate.query(sql, param, new BeanPropertyRowMapper<>(RequestParticipationResponse.class))
+                .stream().findFirst().orElse(null);
+    }
+
+    // one multi-row insert for a batch of admitted requests, rows keep the given order so ids follow first-come order,
+    // returns only inserted rows, a student who already has a request in the round is skipped
+    public List<RequestParticipationResponse> insertParticipationRequests(List<ParticipationRequest> participationRequests) {
+        if (participationRequests.isEmpty()) {
+            return List.of();
+        }
+
+        var values = new StringJoiner(", ");
+        var param = new MapSqlParameterSource();
+        for (int i = 0; i < participationRequests.size(); i++) {
+            var participationRequest = participationRequests.get(i);
+            values.add(String.format("(:participationId%1$d, :studentId%1$d, :createdAt%1$d, :isScored%1$d, :score%1$d)", i));
+            param.addValue("participationId" + i, participationRequest.getParticipationId())
+                    .addValue("studentId" + i, participationRequest.getStudentId())
+                    .addValue("createdAt" + i, participationRequest.getCreatedAt())
+                    .addValue("isScored" + i, participationRequest.getIsScored())
+                    .addValue("score" + i, participationRequest.getScore());
+        }
+
+        var sql = "with pr as (insert into participation_requests (participation_id, student_id, created_at, is_scored, score) values "
+                + values + " on conflict (participation_id, student_id) do nothing returning *) "
+                + SELECT_REQUEST + " from pr " + JOIN_STUDENT + " order by pr.id";
+
+        return namedParameterJdbcTemplate.query(sql, param, new BeanPropertyRowMapper<>(RequestParticipationResponse.class));
+    }
+
+    // all scores in one statement, only requests not scored yet are updated, each given id is reported as scored,
+    // already scored or not found
+    public EvaluateParticipationResponse scoreParticipationRequests(Map<Long, Integer> scores) {
+        var response = EvaluateParticipationResponse.builder()
+                .notFoundParticipationRequestIds(new ArrayList<>())
+                .build();
+        if (scores.isEmpty()) {
+            return response;
+        }
+
+        var values = new StringJoiner(", ");
+        var param = new MapSqlParameterSource();
+        var i = 0;
+        for (var score : scores.entrySet()) {
+            values.add(String.format("(:id%1$d, :score%1$d)", i));
+            param.addValue("id" + i, score.getKey())
+                    .addValue("score" + i, score.getValue());
+            i++;
+        }
+
+        var sql = "with v (id, score) as (values " + values + "), "
+                + """
+                scored as (
+                    update participation_requests pr set score = v.score, is_scored = true
+                    from v
+                    where pr.id = v.id and pr.is_scored = false
+                    returning pr.id
+                )
+                select
+                    v.id,
+                    exists (select 1 from scored s where s.id = v.id) as scored,
+                    exists (select 1 from participation_requests pr where pr.id = v.id) as found
+                from v
+                order by v.id
+                """;
+
+        namedParameterJdbcTemplate.query(sql, param, rs -> {
+            if (rs.getBoolean("scored")) {
+                response.setScoredRow(response.getScoredRow() + 1);
+            } else if (rs.getBoolean("found")) {
+                response.setAlreadyScoredRow(response.getAlreadyScoredRow() + 1);
+            } else {
+                response.getNotFoundParticipationRequestIds().add(rs.getLong("id"));
+            }
+        });
+        return response;
+    }
+}
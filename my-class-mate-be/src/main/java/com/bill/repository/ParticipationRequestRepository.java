@@ -9,8 +9,6 @@ import java.util.List;
 
 @Repository
 public interface ParticipationRequestRepository extends JpaRepository<ParticipationRequest, Long> {
-    ParticipationRequest findByParticipationIdAndStudentId(Long participationId, Long studentId);
-
     List<ParticipationRequest> findByParticipationIdOrderByCreatedAtAsc(Long participationId);
 
     void deleteByParticipationIdIn(Collection<Long> participationIds);
@@ -0,0 +1,98 @@
+package com.bill.repository;
+
+import com.bill.model.StudentSummaryDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public class SummaryJdbcRepository {
+    @Autowired
+    NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // recount present/late/absent of all enrolled students up to targetDate and upsert attendance_summaries
+    public int upsertAttendanceSummaries(Long courseId, LocalDate targetDate, LocalDateTime now) {
+        var sql = """
+                insert into attendance_summaries (student_id, course_id, total_present, total_late, total_absent, created_at, updated_at)
+                select
+                    e.student_id,
+                    e.course_id,
+                    count(cs.id) filter (where a.status = 'PRESENT'),
+                    count(cs.id) filter (where a.status = 'LATE'),
+                    count(cs.id) filter (where coalesce(a.status, 'ABSENT') = 'ABSENT'),
+                    :now,
+                    :now
+                from enrollments e
+                inner join course_schedules cs on cs.course_id = e.course_id and cs.schedule_date <= :targetDate
+                left join attendances a on a.course_schedule_id = cs.id and a.course_id = cs.course_id and a.student_id = e.student_id
+                where e.course_id = :courseId
+                group by e.student_id, e.course_id
+                on conflict (student_id, course_id) do update set
+                    total_present = excluded.total_present,
+                    total_late = excluded.total_late,
+                    total_absent = excluded.total_absent,
+                    updated_at = excluded.updated_at
+                """;
+        var param = new MapSqlParameterSource()
+                .addValue("courseId", courseId)
+                .addValue("targetDate", targetDate)
+                .addValue("now", now);
+
+        return namedParameterJdbcTemplate.update(sql, param);
+    }
+
+    // today status, attendance summary and participation totals of every enrolled student in one query
+    public List<StudentSummaryDto> findStudentSummaries(Long courseId, Long courseScheduleId) {
+        var sql = """
+                select
+                    e.student_id,
+                    u.email,
+                    concat(u.name_th, ' ', u.surname_th) as student_name_th,
+                    coalesce(ta.status, 'ABSENT') as today_status,
+                    s.total_present,
+                    s.total_late,
+                    s.total_absent,
+                    coalesce(tp.total_participations, 0) as today_participations,
+                    coalesce(tp.total_score, 0) as today_score,
+                    coalesce(cp.total_participations, 0) as total_participations,
+                    coalesce(cp.total_score, 0) as total_score
+                from enrollments e
+                inner join users u on e.student_id = u.id
+                inner join attendance_summaries s on s.student_id = e.student_id and s.course_id = e.course_id
+                left join lateral (
+                    select a.status from attendances a
+                    where a.student_id = e.student_id and a.course_schedule_id = :courseScheduleId
+                    order by a.id desc
+                    limit 1
+                ) ta on true
+                left join (
+                    select pr.student_id, count(pr.id) as total_participations, sum(pr.score) as total_score
+                    from participations p
+                    inner join participation_requests pr on p.id = pr.participation_id
+                    where p.course_schedule_id = :courseScheduleId
+                    group by pr.student_id
+                ) tp on tp.student_id = e.student_id
+                left join (
+                    select pr.student_id, count(pr.id) as total_participations, sum(pr.score) as total_score
+                    from course_schedules cs
+                    inner join participations p on cs.id = p.course_schedule_id
+                    inner join participation_requests pr on p.id = pr.participation_id
+                    where cs.course_id = :courseId
+                    group by pr.student_id
+                ) cp on cp.student_id = e.student_id
+                where e.course_id = :courseId
+                order by e.student_id
+                """;
+        var param = new MapSqlParameterSource()
+                .addValue("courseId", courseId)
+                .addValue("courseScheduleId", courseScheduleId);
+
+        return namedParameterJdbcTemplate.query(sql, param, new BeanPropertyRowMapper<>(StudentSummaryDto.class));
+    }
+}
@@ -5,6 +5,7 @@ import com.bill.repository.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +18,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByIsDeletedFalse();
 
     Optional<User> findByIdAndIsDeletedFalse(Long id);
+
+    List<User> findByIdInAndIsDeletedFalse(Collection<Long> ids);
 }
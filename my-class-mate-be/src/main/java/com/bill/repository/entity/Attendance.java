@@ -16,13 +16,14 @@ import java.time.LocalDateTime;
 @Table(
         name = "attendances",
         indexes = {
-                @Index(name = "attendances_index_0", columnList = "student_id"),
                 @Index(name = "attendances_index_1", columnList = "course_id"),
-                @Index(name = "attendances_index_2", columnList = "course_schedule_id")
+                @Index(name = "attendances_index_2", columnList = "course_schedule_id"),
+                @Index(name = "attendances_index_3", columnList = "student_id, course_schedule_id", unique = true)
         })
 public class Attendance {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendances_id_seq")
+    @SequenceGenerator(name = "attendances_id_seq", sequenceName = "attendances_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "student_id", nullable = false)
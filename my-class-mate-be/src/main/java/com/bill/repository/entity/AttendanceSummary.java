@@ -15,12 +15,13 @@ import java.time.LocalDateTime;
 @Table(
         name = "attendance_summaries",
         indexes = {
-                @Index(name = "attendance_summaries_index_0", columnList = "student_id"),
-                @Index(name = "attendance_summaries_index_1", columnList = "course_id")
+                @Index(name = "attendance_summaries_index_1", columnList = "course_id"),
+                @Index(name = "attendance_summaries_index_2", columnList = "student_id, course_id", unique = true)
         })
 public class AttendanceSummary {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_summaries_id_seq")
+    @SequenceGenerator(name = "attendance_summaries_id_seq", sequenceName = "attendance_summaries_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "student_id", nullable = false)
@@ -24,7 +24,8 @@ import java.time.LocalTime;
         })
 public class Course {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "courses_id_seq")
+    @SequenceGenerator(name = "courses_id_seq", sequenceName = "courses_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "course_code", length = 20, nullable = false, unique = true)
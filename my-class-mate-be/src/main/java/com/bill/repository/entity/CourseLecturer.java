@@ -18,7 +18,8 @@ import lombok.experimental.FieldDefaults;
         })
 public class CourseLecturer {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_lecturers_id_seq")
+    @SequenceGenerator(name = "course_lecturers_id_seq", sequenceName = "course_lecturers_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "course_id", nullable = false)
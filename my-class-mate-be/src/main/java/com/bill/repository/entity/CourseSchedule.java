@@ -17,11 +17,13 @@ import java.time.LocalTime;
 @Table(
         name = "course_schedules",
         indexes = {
-                @Index(name = "course_schedules_index_0", columnList = "course_id")
+                @Index(name = "course_schedules_index_1", columnList = "course_id, schedule_date"),
+                @Index(name = "course_schedules_index_2", columnList = "schedule_date, start_time")
         })
 public class CourseSchedule {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_schedules_id_seq")
+    @SequenceGenerator(name = "course_schedules_id_seq", sequenceName = "course_schedules_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "course_id", nullable = false)
@@ -0,0 +1,55 @@
+package com.bill.repository.entity;
+
+import com.bill.constant.EmailStatusEnum;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table(
+        name = "email_outboxes",
+        indexes = {
+                // partial, where status in ('PENDING', 'SENDING')
+                @Index(name = "email_outboxes_index_1", columnList = "next_attempt_at")
+        })
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_outboxes_id_seq")
+    @SequenceGenerator(name = "email_outboxes_id_seq", sequenceName = "email_outboxes_id_seq", allocationSize = 50)
+    Long id;
+
+    @Column(name = "recipient", length = 100, nullable = false)
+    String recipient;
+
+    @Column(name = "subject", length = 255, nullable = false)
+    String subject;
+
+    @Column(name = "body", nullable = false, columnDefinition = "TEXT")
+    String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 10, nullable = false)
+    EmailStatusEnum status;
+
+    @Column(name = "attempt_count", nullable = false)
+    Integer attemptCount;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    LocalDateTime sentAt;
+}
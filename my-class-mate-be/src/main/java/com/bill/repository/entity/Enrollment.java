@@ -16,11 +16,12 @@ import java.time.LocalDateTime;
         name = "enrollments",
         indexes = {
                 @Index(name = "enrollments_index_0", columnList = "student_id"),
-                @Index(name = "enrollments_index_1", columnList = "course_id")
+                @Index(name = "enrollments_index_2", columnList = "course_id, student_id")
         })
 public class Enrollment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "enrollments_id_seq")
+    @SequenceGenerator(name = "enrollments_id_seq", sequenceName = "enrollments_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "student_id", nullable = false)
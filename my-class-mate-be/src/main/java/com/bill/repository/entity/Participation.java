@@ -16,12 +16,12 @@ import java.time.LocalDateTime;
 @Table(
         name = "participations",
         indexes = {
-                @Index(name = "participations_index_0", columnList = "course_schedule_id"),
-                @Index(name = "participations_index_1", columnList = "status")
+                @Index(name = "participations_index_2", columnList = "course_schedule_id, round", unique = true)
         })
 public class Participation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "participations_id_seq")
+    @SequenceGenerator(name = "participations_id_seq", sequenceName = "participations_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "course_schedule_id", nullable = false)
@@ -15,12 +15,13 @@ import java.time.LocalDateTime;
 @Table(
         name = "participation_requests",
         indexes = {
-                @Index(name = "participation_requests_index_0", columnList = "participation_id"),
-                @Index(name = "participation_requests_index_1", columnList = "student_id")
+                @Index(name = "participation_requests_index_1", columnList = "student_id"),
+                @Index(name = "participation_requests_index_2", columnList = "participation_id, student_id", unique = true)
         })
 public class ParticipationRequest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "participation_requests_id_seq")
+    @SequenceGenerator(name = "participation_requests_id_seq", sequenceName = "participation_requests_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "participation_id", nullable = false)
@@ -5,7 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
@@ -14,7 +14,6 @@ import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -24,31 +23,39 @@ import static com.bill.exceptionhandler.ErrorEnum.ERROR_INTERNAL_API_CALL;
 @Component
 @RequiredArgsConstructor
 public class ApiClient {
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
 
     @Value("${app.fast-api.url}")
     private String FASTAPI_URL;
 
     public <T> T postMultipartSafe(String endpoint, Long userId, List<MultipartFile> files, Class<T> responseType, String fileBody) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        for (MultipartFile file : files) {
+            body.add(fileBody, getFilePart(file));
+        }
+        return postMultipart(endpoint, userId, body, responseType);
+    }
+
+    // for files already prepared in the backend (e.g. preprocessed images), content type is resolved from the filename
+    public <T> T postResourceSafe(String endpoint, Long userId, List<Resource> resources, Class<T> responseType, String fileBody) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        for (Resource resource : resources) {
+            body.add(fileBody, resource);
+        }
+        return postMultipart(endpoint, userId, body, responseType);
+    }
+
+    private <T> T postMultipart(String endpoint, Long userId, MultiValueMap<String, Object> body, Class<T> responseType) {
         String url = FASTAPI_URL + endpoint;
         log.info("Calling FastAPI POST (Multipart): {}", url);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.MULTIPART_FORM_DATA);
 
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
         if (userId != null) {
             body.add("user_id", userId.toString());
         }
 
-        try {
-            for (MultipartFile file : files) {
-                body.add(fileBody, getByteArrayResource(file));
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Error reading files", e);
-        }
-
         HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
 
         try {
@@ -60,15 +67,13 @@ public class ApiClient {
         }
     }
 
-    private ByteArrayResource getByteArrayResource(MultipartFile file) throws IOException {
+    // stream from the upload (tomcat temp file) into the outgoing body without copying it to a byte[]
+    private HttpEntity<Resource> getFilePart(MultipartFile file) {
         HttpHeaders fileHeader = new HttpHeaders();
-        fileHeader.setContentType(MediaType.parseMediaType(file.getContentType()));
-        return new ByteArrayResource(file.getBytes()) {
-            @Override
-            public String getFilename() {
-                return file.getOriginalFilename();
-            }
-        };
+        if (file.getContentType() != null) {
+            fileHeader.setContentType(MediaType.parseMediaType(file.getContentType()));
+        }
+        return new HttpEntity<>(file.getResource(), fileHeader);
     }
 
     private AppException mapFastApiError(HttpServerErrorException e) {
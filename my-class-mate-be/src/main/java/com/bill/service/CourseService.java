@@ -28,6 +28,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static com.bill.constant.Constants.MAX_COURSE_SUMMARY_PAGE_SIZE;
 import static com.bill.exceptionhandler.ErrorEnum.*;
 import static com.bill.service.AppUtils.getCellValue;
 
@@ -48,6 +49,9 @@ public class CourseService {
     AttendanceSummaryRepository attendanceSummaryRepository;
     ParticipationRepository participationRepository;
     ParticipationRequestRepository participationRequestRepository;
+    SessionRosterCache sessionRosterCache;
+    ParticipationRoundRegistry participationRoundRegistry;
+    ExcelMetrics excelMetrics;
 
     public List<InitCourseResponse> initCourse(InitCourseRequest request) {
         var dayOfWeek = request.getDayOfWeek();
@@ -148,6 +152,23 @@ public class CourseService {
         return mapToCoursesResponse(courses);
     }
 
+    public CourseSummaryPageResponse getCourseSummaries(Integer academicYear, Integer semester, String courseCodePrefix, String cursor, Integer size) {
+        var pageSize = Math.min(Math.max(size, 1), MAX_COURSE_SUMMARY_PAGE_SIZE);
+        // fetch one more row to know whether there is a next page
+        var courses = courseJdbcRepository.findCourseSummaries(academicYear, semester, StringUtils.trimToNull(courseCodePrefix), StringUtils.trimToNull(cursor), pageSize + 1);
+
+        String nextCursor = null;
+        if (courses.size() > pageSize) {
+            courses = courses.subList(0, pageSize);
+            nextCursor = courses.get(pageSize - 1).getCourseCode();
+        }
+
+        return CourseSummaryPageResponse.builder()
+                .courses(courses)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     @Transactional
     public void deleteCourse(Long courseId) {
         // query for delete
@@ -165,6 +186,8 @@ public class CourseService {
         attendanceSummaryRepository.deleteByCourseId(courseId);
         participationRepository.deleteByCourseScheduleIdIn(courseScheduleIds);
         participationRequestRepository.deleteByParticipationIdIn(participationIds);
+        sessionRosterCache.invalidateCourse(courseId);
+        participationRoundRegistry.evictCourseSchedules(courseScheduleIds);
     }
 
     @Transactional
@@ -186,6 +209,7 @@ public class CourseService {
 
         // update course schedule
         updateCourseSchedule(request.getSchedules(), courseId, now);
+        sessionRosterCache.invalidateCourse(courseId);
 
         return mapToCourseResponse(course);
     }
@@ -201,6 +225,7 @@ public class CourseService {
                 courseScheduleRepository.deleteById(courseScheduleId);
                 attendanceRepository.deleteByCourseScheduleId(courseScheduleId);
                 participationRepository.deleteByCourseScheduleId(courseScheduleId);
+                participationRoundRegistry.evictCourseSchedules(List.of(courseScheduleId));
             } else {
                 existingSchedule.setCourseId(courseId);
                 existingSchedule.setScheduleDate(schedule.getScheduleDate());
@@ -239,11 +264,13 @@ public class CourseService {
         }
 
         enrollmentRepository.saveAll(enrollments);
+        sessionRosterCache.invalidateCourse(courseId);
 
         return mapToCourseResponse(course);
     }
 
     public byte[] exportStudentToCourse(Long courseId, Boolean isTemplate) {
+        var startNanos = System.nanoTime();
         try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
             Sheet sheet = workbook.createSheet("ผู้เรียน");
 
@@ -273,13 +300,16 @@ public class CourseService {
                 cell.setCellStyle(headerStyle);
             }
 
+            var exportedRow = 0;
             if (!Boolean.TRUE.equals(isTemplate)) {
                 var enrollments = enrollmentRepository.findByCourseIdOrderByCreatedAtAsc(courseId);
+                var studentProfileMap = studentProfileService.getStudentProfiles(enrollments.stream().map(Enrollment::getStudentId).toList());
                 int rowIdx = 1;
+                exportedRow = enrollments.size();
 
                 for (var enrollment : enrollments) {
                     var studentId = enrollment.getStudentId();
-                    var studentProfile = studentProfileService.getStudentProfile(studentId);
+                    var studentProfile = studentProfileMap.get(studentId);
                     String studentNo = studentProfile.getStudentNo();
 
                     Row row = sheet.createRow(rowIdx++);
@@ -296,6 +326,7 @@ public class CourseService {
             }
 
             workbook.write(out);
+            excelMetrics.record("export", "course-students", startNanos, exportedRow);
             return out.toByteArray();
 
         } catch (Exception e) {
@@ -306,8 +337,10 @@ public class CourseService {
 
     @Transactional
     public ImportStudentToCourseExcelResponse importStudentToCourse(Long courseId, MultipartFile file) {
+        var startNanos = System.nanoTime();
         // delete old enrollment
         enrollmentRepository.deleteByCourseId(courseId);
+        sessionRosterCache.invalidateCourse(courseId);
 
         // insert new enrollment
         List<String> invalidStudentNos = new ArrayList<>();
@@ -357,6 +390,7 @@ public class CourseService {
             throw new AppException(ERROR_IMPORT_EXCEL.getCode(), ERROR_IMPORT_EXCEL.getMessage());
         }
 
+        excelMetrics.record("import", "course-students", startNanos, createdRow + invalidStudentNos.size());
         return ImportStudentToCourseExcelResponse.builder().createdRow(createdRow).invalidStudentNos(invalidStudentNos).build();
     }
 
@@ -379,55 +413,78 @@ public class CourseService {
     }
 
     private CourseResponse mapToCourseResponse(Course course) {
-        var courseResponse = modelMapper.map(course, CourseResponse.class);
-        var courseId = course.getId();
-        courseResponse.setCourseId(courseId);
-
-        // course lecturer
-        var clResponses = new ArrayList<CourseLecturerResponse>();
-        var courseLecturers = courseLecturerRepository.findByCourseId(courseId);
-        for (var courseLecturer : courseLecturers) {
-            var clResponse = modelMapper.map(courseLecturer, CourseLecturerResponse.class);
-            var lecturerId = courseLecturer.getLecturerId();
-            clResponse.setLecturerId(lecturerId);
-            var userNameDto = userService.getFullName(lecturerId);
-            clResponse.setLecturerNameTh(userNameDto.getFullNameTh());
-            clResponse.setLecturerNameEn(userNameDto.getFullNameEn());
-            clResponses.add(clResponse);
-        }
-        courseResponse.setLecturers(clResponses);
+        return mapToCoursesResponse(List.of(course)).get(0);
+    }
 
-        // course schedule
-        var csResponses = new ArrayList<CourseScheduleResponse>();
-        var courseSchedules = courseScheduleRepository.findByCourseIdOrderByScheduleDateAsc(courseId);
-        for (var cs : courseSchedules) {
-            var csResponse = modelMapper.map(cs, CourseScheduleResponse.class);
-            csResponse.setCourseScheduleId(cs.getId());
-            csResponses.add(csResponse);
-        }
-        courseResponse.setSchedules(csResponses);
-
-        // course enrollment
-        var enResponses = new ArrayList<CourseEnrollmentResponse>();
-        var enrollments = enrollmentRepository.findByCourseIdOrderByCreatedAtAsc(courseId);
-        for (var en : enrollments) {
-            var enResponse = modelMapper.map(en, CourseEnrollmentResponse.class);
-            var studentProfile = studentProfileService.getStudentProfile(en.getStudentId());
-            enResponse.setStudentNo(studentProfile.getStudentNo());
-            enResponse.setStudentNameTh(studentProfile.getStudentNameTh());
-            enResponse.setStudentNameEn(studentProfile.getStudentNameEn());
-            enResponses.add(enResponse);
+    // load lecturers, schedules, enrollments and names for all courses at once, query count not depend on courses or students
+    private List<CourseResponse> mapToCoursesResponse(List<Course> courses) {
+        if (courses.isEmpty()) {
+            return new ArrayList<>();
         }
-        enResponses.sort(Comparator.comparing(CourseEnrollmentResponse::getStudentNo));
-        courseResponse.setEnrollments(enResponses);
 
-        return courseResponse;
-    }
+        var courseIds = courses.stream().map(Course::getId).toList();
+
+        // key = courseId
+        var courseLecturerMap = courseLecturerRepository.findByCourseIdIn(courseIds).stream()
+                .collect(Collectors.groupingBy(CourseLecturer::getCourseId));
+        var courseScheduleMap = courseScheduleRepository.findByCourseIdInOrderByScheduleDateAsc(courseIds).stream()
+                .collect(Collectors.groupingBy(CourseSchedule::getCourseId));
+        var enrollmentMap = enrollmentRepository.findByCourseIdInOrderByCreatedAtAsc(courseIds).stream()
+                .collect(Collectors.groupingBy(Enrollment::getCourseId));
+
+        // key = userId
+        var lecturerIds = courseLecturerMap.values().stream()
+                .flatMap(List::stream)
+                .map(CourseLecturer::getLecturerId)
+                .collect(Collectors.toSet());
+        var lecturerNameMap = userService.getFullNames(lecturerIds);
+        var studentIds = enrollmentMap.values().stream()
+                .flatMap(List::stream)
+                .map(Enrollment::getStudentId)
+                .collect(Collectors.toSet());
+        var studentProfileMap = studentProfileService.getStudentProfiles(studentIds);
 
-    private List<CourseResponse> mapToCoursesResponse(List<Course> courses) {
         var responseList = new ArrayList<CourseResponse>();
         for (var course : courses) {
-            var courseResponse = mapToCourseResponse(course);
+            var courseResponse = modelMapper.map(course, CourseResponse.class);
+            var courseId = course.getId();
+            courseResponse.setCourseId(courseId);
+
+            // course lecturer
+            var clResponses = new ArrayList<CourseLecturerResponse>();
+            for (var courseLecturer : courseLecturerMap.getOrDefault(courseId, List.of())) {
+                var clResponse = modelMapper.map(courseLecturer, CourseLecturerResponse.class);
+                var lecturerId = courseLecturer.getLecturerId();
+                clResponse.setLecturerId(lecturerId);
+                var userNameDto = lecturerNameMap.get(lecturerId);
+                clResponse.setLecturerNameTh(userNameDto.getFullNameTh());
+                clResponse.setLecturerNameEn(userNameDto.getFullNameEn());
+                clResponses.add(clResponse);
+            }
+            courseResponse.setLecturers(clResponses);
+
+            // course schedule
+            var csResponses = new ArrayList<CourseScheduleResponse>();
+            for (var cs : courseScheduleMap.getOrDefault(courseId, List.of())) {
+                var csResponse = modelMapper.map(cs, CourseScheduleResponse.class);
+                csResponse.setCourseScheduleId(cs.getId());
+                csResponses.add(csResponse);
+            }
+            courseResponse.setSchedules(csResponses);
+
+            // course enrollment
+            var enResponses = new ArrayList<CourseEnrollmentResponse>();
+            for (var en : enrollmentMap.getOrDefault(courseId, List.of())) {
+                var enResponse = modelMapper.map(en, CourseEnrollmentResponse.class);
+                var studentProfile = studentProfileMap.get(en.getStudentId());
+                enResponse.setStudentNo(studentProfile.getStudentNo());
+                enResponse.setStudentNameTh(studentProfile.getStudentNameTh());
+                enResponse.setStudentNameEn(studentProfile.getStudentNameEn());
+                enResponses.add(enResponse);
+            }
+            enResponses.sort(Comparator.comparing(CourseEnrollmentResponse::getStudentNo));
+            courseResponse.setEnrollments(enResponses);
+
             responseList.add(courseResponse);
         }
         return responseList;
@@ -0,0 +1,231 @@
+package com.bill.service;
+
+import com.bill.repository.EmailOutboxJdbcRepository;
+import com.bill.repository.entity.EmailOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+public class EmailDispatcher {
+    private static final long LEASE_MINUTES = 10;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private EmailOutboxJdbcRepository emailOutboxJdbcRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.email.workers}")
+    private int workers;
+
+    @Value("${app.email.batch-size}")
+    private int batchSize;
+
+    @Value("${app.email.rate-per-second}")
+    private int ratePerSecond;
+
+    @Value("${app.email.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${app.email.retry-backoff-ms}")
+    private long retryBackoffMs;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    private volatile boolean stopping;
+
+    // messages per claim and per smtp connection
+    private int sendBatchSize;
+
+    private ThreadPoolTaskExecutor emailExecutor;
+
+    // shared by all workers so the relay never sees more than ratePerSecond messages
+    private long nextPermitNanos = System.nanoTime();
+
+    @PostConstruct
+    public void init() {
+        // a batch goes out as soon as its permits are taken, so it is never larger than one second of the rate
+        sendBatchSize = Math.max(1, Math.min(batchSize, ratePerSecond));
+
+        // not a bean on purpose, a user defined executor would replace spring's applicationTaskExecutor
+        emailExecutor = new ThreadPoolTaskExecutor();
+        emailExecutor.setCorePoolSize(workers);
+        emailExecutor.setMaxPoolSize(workers);
+        emailExecutor.setQueueCapacity(workers);
+        emailExecutor.setThreadNamePrefix("email-");
+        emailExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        emailExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // workers finish the batch in hand and claim no more
+        stopping = true;
+        emailExecutor.shutdown();
+    }
+
+    // the poll only starts idle workers, a started worker keeps claiming until the outbox has nothing due,
+    // so the shared permits set the pace and not the poll interval
+    @Scheduled(fixedDelayString = "${app.email.poll-interval-ms}")
+    public void dispatch() {
+        while (activeWorkers.get() < workers && !stopping) {
+            var batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            activeWorkers.incrementAndGet();
+            try {
+                emailExecutor.execute(() -> drain(batch));
+            } catch (TaskRejectedException e) {
+                // rows stay SENDING until the lease expires and are claimed again
+                activeWorkers.decrementAndGet();
+                log.warn("EmailDispatcher executor rejected batch size = {}", batch.size());
+                return;
+            }
+        }
+    }
+
+    private void drain(List<EmailOutbox> firstBatch) {
+        try {
+            var batch = firstBatch;
+            while (!batch.isEmpty()) {
+                sendBatch(batch);
+                if (stopping) {
+                    return;
+                }
+                batch = claimBatch();
+            }
+        } catch (Exception e) {
+            // claimed rows stay SENDING until the lease expires, the next poll starts the worker again
+            log.error("EmailDispatcher worker stopped", e);
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        var now = LocalDateTime.now();
+        return emailOutboxJdbcRepository.claimBatch(sendBatchSize, now, now.plusMinutes(LEASE_MINUTES));
+    }
+
+    private void sendBatch(List<EmailOutbox> batch) {
+        var messages = new LinkedHashMap<MimeMessage, EmailOutbox>();
+        for (var email : batch) {
+            // every expired lease counted as an attempt in the claim, a message that keeps a worker from finishing ends here
+            if (email.getAttemptCount() >= maxAttempts) {
+                log.error("Failed to send email id = {} to {}, lease expired after {} attempts", email.getId(), email.getRecipient(), email.getAttemptCount());
+                emailOutboxJdbcRepository.markFailed(email.getId(), email.getAttemptCount(), "lease expired");
+                meterRegistry.counter("email.messages", "status", "failed").increment();
+                continue;
+            }
+            try {
+                messages.put(createMessage(email), email);
+            } catch (Exception e) {
+                handleFailure(email, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        acquirePermits(messages.size());
+
+        // JavaMailSender opens one Transport connection for the whole array
+        var failedMessages = new HashMap<Object, Exception>();
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.keySet().forEach(message -> failedMessages.put(message, e));
+            } else {
+                failedMessages.putAll(e.getFailedMessages());
+            }
+        } catch (Exception e) {
+            messages.keySet().forEach(message -> failedMessages.put(message, e));
+        }
+
+        var sentIds = new ArrayList<Long>();
+        messages.forEach((message, email) -> {
+            var exception = failedMessages.get(message);
+            if (exception == null) {
+                sentIds.add(email.getId());
+            } else {
+                handleFailure(email, exception);
+            }
+        });
+
+        if (!sentIds.isEmpty()) {
+            emailOutboxJdbcRepository.markSent(sentIds, LocalDateTime.now());
+            meterRegistry.counter("email.messages", "status", "sent").increment(sentIds.size());
+        }
+        log.info("EmailDispatcher sent = {}, failed = {}", sentIds.size(), batch.size() - sentIds.size());
+    }
+
+    private MimeMessage createMessage(EmailOutbox email) throws Exception {
+        var message = mailSender.createMimeMessage();
+        var helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+        return message;
+    }
+
+    private void handleFailure(EmailOutbox email, Exception e) {
+        var attemptCount = email.getAttemptCount() + 1;
+        var lastError = StringUtils.abbreviate(e.getMessage(), 500);
+
+        if (attemptCount >= maxAttempts) {
+            log.error("Failed to send email id = {} to {} after {} attempts", email.getId(), email.getRecipient(), attemptCount, e);
+            emailOutboxJdbcRepository.markFailed(email.getId(), attemptCount, lastError);
+            meterRegistry.counter("email.messages", "status", "failed").increment();
+        } else {
+            // exponential backoff: retryBackoffMs, 2x, 4x, ...
+            var backoffMs = retryBackoffMs << (attemptCount - 1);
+            log.warn("Failed to send email id = {} to {}, retry in {} ms", email.getId(), email.getRecipient(), backoffMs, e);
+            emailOutboxJdbcRepository.markRetry(email.getId(), attemptCount, LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs)), lastError);
+            meterRegistry.counter("email.messages", "status", "retry").increment();
+        }
+    }
+
+    private void acquirePermits(int permits) {
+        long waitNanos;
+        synchronized (this) {
+            var now = System.nanoTime();
+            var start = Math.max(now, nextPermitNanos);
+            nextPermitNanos = start + permits * TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+            waitNanos = start - now;
+        }
+
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
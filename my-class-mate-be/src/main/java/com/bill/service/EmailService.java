@@ -1,35 +1,44 @@
 package com.bill.service;
 
+import com.bill.constant.EmailStatusEnum;
+import com.bill.repository.EmailOutboxRepository;
+import com.bill.repository.entity.EmailOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static com.bill.service.AppUtils.runAfterCommit;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class EmailService {
-    JavaMailSender mailSender;
-
-    public void sendEmail(String to, String subject, String body) {
-        log.info("Sending email subject: {}, to : {}", subject, to);
-        try {
-            var message = mailSender.createMimeMessage();
-            var helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(body, true);
+    EmailOutboxRepository emailOutboxRepository;
+    MeterRegistry meterRegistry;
 
-            mailSender.send(message);
-            log.info("Email sent to {} success", to);
-        } catch (Exception e) {
-            log.error("Failed to send email to {}", to, e);
-        }
+    // write to outbox within caller transaction, EmailDispatcher sends it later
+    @Transactional
+    public void queueEmail(String to, String subject, String body) {
+        log.info("Queue email subject: {}, to : {}", subject, to);
+        var now = LocalDateTime.now();
+        emailOutboxRepository.save(EmailOutbox.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(body)
+                .status(EmailStatusEnum.PENDING)
+                .attemptCount(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+        // counted once the outbox row is committed
+        runAfterCommit(() -> meterRegistry.counter("email.messages", "status", "queued").increment());
     }
 
 }
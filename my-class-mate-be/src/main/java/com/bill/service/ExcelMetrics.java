@@ -0,0 +1,39 @@
+package com.bill.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// duration, rows and rows per second of excel imports and exports, tagged by operation (import/export) and file
+@Component
+public class ExcelMetrics {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public void record(String operation, String file, long startNanos, long rows) {
+        var elapsedNanos = System.nanoTime() - startNanos;
+        Timer.builder("excel")
+                .tag("operation", operation)
+                .tag("file", file)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("excel.rows")
+                .baseUnit("rows")
+                .tag("operation", operation)
+                .tag("file", file)
+                .register(meterRegistry)
+                .record(rows);
+        if (elapsedNanos > 0) {
+            DistributionSummary.builder("excel.throughput")
+                    .baseUnit("rows.per.second")
+                    .tag("operation", operation)
+                    .tag("file", file)
+                    .register(meterRegistry)
+                    .record(rows * 1e9 / elapsedNanos);
+        }
+    }
+}
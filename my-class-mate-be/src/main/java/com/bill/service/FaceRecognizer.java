@@ -0,0 +1,132 @@
+package com.bill.service;
+
+import com.bill.exceptionhandler.AppException;
+import com.bill.model.response.FastAPIFaceRegResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+import static com.bill.exceptionhandler.ErrorEnum.ERROR_INTERNAL_API_CALL;
+import static com.bill.exceptionhandler.ErrorEnum.ERROR_INVALID_REQUEST;
+
+// face recognition calls to fast-api, batches fan out on a bounded executor so throughput follows fast-api workers
+@Slf4j
+@Component
+public class FaceRecognizer {
+    private static final String FACE_RECOGNITION_ENDPOINT = "/v1/face-recognition";
+
+    @Autowired
+    private ApiClient apiClient;
+
+    @Autowired
+    private ImagePreprocessor imagePreprocessor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.face.recognition.parallelism}")
+    private int parallelism;
+
+    @Value("${app.face.recognition.max-batch-size}")
+    private int maxBatchSize;
+
+    private ThreadPoolTaskExecutor recognitionExecutor;
+
+    @PostConstruct
+    public void init() {
+        recognitionExecutor = new ThreadPoolTaskExecutor();
+        recognitionExecutor.setCorePoolSize(parallelism);
+        recognitionExecutor.setMaxPoolSize(parallelism);
+        recognitionExecutor.setQueueCapacity(maxBatchSize);
+        // when every batch in flight fills the queue, the request thread runs the call itself instead of failing
+        recognitionExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        recognitionExecutor.setThreadNamePrefix("face-");
+        recognitionExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recognitionExecutor.shutdown();
+    }
+
+    // returns the recognized user id, throws AppException when fast-api cannot recognize the face
+    public Long recognize(MultipartFile file) {
+        var image = timed("upload", () -> imagePreprocessor.preprocess(file));
+        var response = timed("fast-api", () -> {
+            var fastApiResponse = apiClient.postResourceSafe(FACE_RECOGNITION_ENDPOINT, null, List.of(image), FastAPIFaceRegResponse.class, "file");
+            if (fastApiResponse == null || !"Success".equals(fastApiResponse.getStatus())) {
+                throw new AppException(ERROR_INTERNAL_API_CALL.getCode(), ERROR_INTERNAL_API_CALL.getMessage());
+            }
+            return fastApiResponse;
+        });
+
+        log.info("recognize file = {}, fastApiResponse = {}", file.getOriginalFilename(), response);
+        return response.getUserId();
+    }
+
+    // one result per file in the same order, a failed face does not fail the batch
+    public List<Recognition> recognizeAll(List<MultipartFile> files) {
+        if (files.isEmpty() || files.size() > maxBatchSize) {
+            throw new AppException(ERROR_INVALID_REQUEST.getCode(), ERROR_INVALID_REQUEST.format("files"));
+        }
+
+        var futures = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> recognize(file), recognitionExecutor))
+                .toList();
+
+        return futures.stream()
+                .map(this::toRecognition)
+                .toList();
+    }
+
+    private Recognition toRecognition(CompletableFuture<Long> future) {
+        try {
+            return new Recognition(future.join(), null, null);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AppException appException) {
+                return new Recognition(null, appException.getCode(), appException.getMessage());
+            }
+            log.error("recognize Exception", e.getCause());
+            return new Recognition(null, ERROR_INTERNAL_API_CALL.getCode(), ERROR_INTERNAL_API_CALL.getMessage());
+        }
+    }
+
+    // result = SUCCESS or the error code (see ApiClient.mapFastApiError), so the timer count is the outcome count
+    private <T> T timed(String phase, Supplier<T> supplier) {
+        var sample = Timer.start(meterRegistry);
+        var result = "SUCCESS";
+        try {
+            return supplier.get();
+        } catch (AppException e) {
+            result = e.getCode();
+            throw e;
+        } catch (RuntimeException e) {
+            result = ERROR_INTERNAL_API_CALL.getCode();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("face.recognition")
+                    .tag("phase", phase)
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+    }
+
+    public record Recognition(Long userId, String errorCode, String errorMessage) {
+        public boolean isRecognized() {
+            return userId != null;
+        }
+    }
+}
@@ -3,26 +3,39 @@ package com.bill.service;
 import com.bill.constant.AttendanceStatusEnum;
 import com.bill.exceptionhandler.AppException;
 import com.bill.model.response.AttendanceResponse;
+import com.bill.model.response.BulkAttendanceResponse;
+import com.bill.model.response.BulkAttendanceResponse.FaceAttendanceResult;
 import com.bill.model.response.FaceRegisterResponse;
-import com.bill.model.response.FastAPIFaceRegResponse;
 import com.bill.model.response.FastAPIFaceRegisterResponse;
-import com.bill.repository.AttendanceRepository;
+import com.bill.model.response.StudentProfileResponse;
+import com.bill.repository.AttendanceJdbcRepository;
 import com.bill.repository.CourseRepository;
 import com.bill.repository.CourseScheduleRepository;
 import com.bill.repository.EnrollmentRepository;
 import com.bill.repository.entity.Attendance;
+import com.bill.repository.entity.CourseSchedule;
+import com.bill.service.FaceRecognizer.Recognition;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Supplier;
 
+import static com.bill.constant.Constants.LATE_THRESHOLD_MINUTES;
 import static com.bill.exceptionhandler.ErrorEnum.*;
 
 @Slf4j
@@ -31,12 +44,16 @@ import static com.bill.exceptionhandler.ErrorEnum.*;
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class FaceService {
     ApiClient apiClient;
+    FaceRecognizer faceRecognizer;
     UserService userService;
     StudentProfileService studentProfileService;
     EnrollmentRepository enrollmentRepository;
-    AttendanceRepository attendanceRepository;
     CourseRepository courseRepository;
     CourseScheduleRepository courseScheduleRepository;
+    AttendanceJdbcRepository attendanceJdbcRepository;
+    SessionRosterCache sessionRosterCache;
+    TransactionTemplate transactionTemplate;
+    MeterRegistry meterRegistry;
 
     public FaceRegisterResponse faceRegister(Long userId, List<MultipartFile> files) {
         var imageCount = 0;
@@ -56,76 +73,212 @@ public class FaceService {
                 .build();
     }
 
-    @Transactional
+    // recognition phase holds no db connection during fast-api inference, enrollment, schedule, course and
+    // student display data come from the session roster so the write phase is only the attendance insert
     public AttendanceResponse attendance(Long courseId, Long courseScheduleId, MultipartFile file) {
-        var faceRegEndpoint = "/v1/face-recognition";
-        var fastApiResponse = apiClient.postMultipartSafe(faceRegEndpoint, null, List.of(file), FastAPIFaceRegResponse.class, "file");
-
-        if ("Success".equals(fastApiResponse.getStatus())) {
-            log.info("attendance fast-api courseId = {}, courseScheduleId = {}, fastApiResponse = {}", courseId, courseScheduleId, fastApiResponse);
-            var studentId = fastApiResponse.getUserId();
-            var studentProfile = studentProfileService.getStudentProfile(studentId);
-            // validate student enrollment
-            enrollmentRepository.findByStudentIdAndCourseId(studentId, courseId)
-                    .orElseThrow(() -> new AppException(
-                            ERROR_ENROLLMENT_NOT_FOUND.getCode(),
-                            ERROR_ENROLLMENT_NOT_FOUND.format(studentProfile.getStudentNo()))
-                    );
-
-            var schedule = courseScheduleRepository.findById(courseScheduleId)
-                    .orElseThrow(() -> new AppException(
-                            ERROR_SCHEDULE_NOT_FOUND.getCode(),
-                            ERROR_SCHEDULE_NOT_FOUND.format(courseScheduleId)
-                    ));
-
-            // check status
-            var now = LocalDateTime.now();
-            var status = AttendanceStatusEnum.PRESENT;
-
-            int lateThresholdMinutes = 20;
-            LocalTime lateLimit = schedule.getStartTime().plusMinutes(lateThresholdMinutes);
-
-            if (now.toLocalTime().isAfter(lateLimit)) {
-                status = AttendanceStatusEnum.LATE;
+        var studentId = timed("recognition", "single", () -> faceRecognizer.recognize(file));
+        log.info("attendance fast-api courseId = {}, courseScheduleId = {}, studentId = {}", courseId, courseScheduleId, studentId);
+
+        var roster = sessionRosterCache.getRoster(courseId, courseScheduleId);
+        // validate student enrollment, profile lookup is only needed for the error message
+        if (!roster.isEnrolled(studentId)) {
+            var notEnrolledProfile = studentProfileService.getStudentProfile(studentId);
+            throw new AppException(
+                    ERROR_ENROLLMENT_NOT_FOUND.getCode(),
+                    ERROR_ENROLLMENT_NOT_FOUND.format(notEnrolledProfile.getStudentNo()));
+        }
+        // enrolled but left out of the roster, throws the user or profile error (or resolves a profile added since)
+        var studentProfile = roster.getStudent(studentId);
+        if (studentProfile == null) {
+            studentProfile = studentProfileService.getStudentProfile(studentId);
+        }
+
+        // insert only first time attendance, otherwise the existing one is returned
+        var now = LocalDateTime.now();
+        var attendance = timed("write", "single", () -> attendanceJdbcRepository.insertIfAbsent(Attendance.builder()
+                .studentId(studentId)
+                .courseId(courseId)
+                .courseScheduleId(courseScheduleId)
+                .createdAt(now)
+                .status(roster.getAttendanceStatus(now))
+                .build()));
+
+        var status = attendance.getStatus();
+        var response =  AttendanceResponse.builder()
+                .attendanceId(attendance.getId())
+                .studentId(studentId)
+                .studentNo(studentProfile.getStudentNo())
+                .studentNameTh(studentProfile.getStudentNameTh())
+                .studentNameEn(studentProfile.getStudentNameEn())
+                .courseId(courseId)
+                .courseScheduleId(courseScheduleId)
+                .courseCode(roster.courseCode)
+                .createdAt(attendance.getCreatedAt())
+                .status(status)
+                .statusDesc(status.getDesc())
+                .remark(null)
+                .build();
+        log.info("attendance response = {}", response);
+        return response;
+    }
+
+    // recognition of all faces runs first without a transaction, then one short transaction writes the whole batch
+    public BulkAttendanceResponse bulkAttendance(Long courseId, Long courseScheduleId, List<MultipartFile> files) {
+        var recognitions = timed("recognition", "bulk", () -> faceRecognizer.recognizeAll(files));
+        var roster = sessionRosterCache.getRoster(courseId, courseScheduleId);
+        var response = timed("write", "bulk", () -> transactionTemplate.execute(status ->
+                saveBulkAttendance(roster, files, recognitions)));
+        log.info("bulkAttendance courseId = {}, courseScheduleId = {}, totalFaces = {}, recognizedFaces = {}, insertedRow = {}",
+                courseId, courseScheduleId, response.getTotalFaces(), response.getRecognizedFaces(), response.getInsertedRow());
+        return response;
+    }
+
+    private BulkAttendanceResponse saveBulkAttendance(SessionRoster roster, List<MultipartFile> files, List<Recognition> recognitions) {
+        var courseId = roster.courseId;
+        var courseScheduleId = roster.courseScheduleId;
+
+        // resolve recognized students against the enrollment set of the session, an enrolled student left out of
+        // the roster (deleted, no student profile) fails only its own faces with the error getStudentProfile throws
+        var studentProfiles = new LinkedHashMap<Long, StudentProfileResponse>();
+        var studentErrors = new HashMap<Long, AppException>();
+        var notEnrolledStudentIds = new LinkedHashSet<Long>();
+        for (var recognition : recognitions) {
+            var studentId = recognition.userId();
+            if (!recognition.isRecognized() || studentProfiles.containsKey(studentId) || studentErrors.containsKey(studentId)) {
+                continue;
             }
+            if (!roster.isEnrolled(studentId)) {
+                notEnrolledStudentIds.add(studentId);
+                continue;
+            }
+            var studentProfile = roster.getStudent(studentId);
+            try {
+                studentProfiles.put(studentId, studentProfile != null ? studentProfile : studentProfileService.getStudentProfile(studentId));
+            } catch (AppException e) {
+                studentErrors.put(studentId, e);
+            }
+        }
+        // not enrolled faces report the student number like the single check-in, one lookup for all of them,
+        // a student findStudentProfiles leaves out fails with the error getStudentProfile throws
+        var notEnrolledProfiles = new HashMap<>(studentProfileService.findStudentProfiles(notEnrolledStudentIds));
+        for (var studentId : notEnrolledStudentIds) {
+            if (notEnrolledProfiles.containsKey(studentId)) {
+                continue;
+            }
+            try {
+                notEnrolledProfiles.put(studentId, studentProfileService.getStudentProfile(studentId));
+            } catch (AppException e) {
+                studentErrors.put(studentId, e);
+            }
+        }
+        var studentIds = studentProfiles.keySet();
 
-            var attendance = attendanceRepository.findFirstByStudentIdAndCourseScheduleIdOrderByIdDesc(studentId, courseScheduleId);
+        var attendances = new HashMap<Long, Attendance>();
+        if (!studentIds.isEmpty()) {
+            attendanceJdbcRepository.findAttendances(courseScheduleId, studentIds)
+                    .forEach(attendance -> attendances.put(attendance.getStudentId(), attendance));
+        }
 
-            // insert only first time attendance
-            if (attendance == null) {
-                attendance = Attendance.builder()
+        // insert only first time attendance, duplicated faces of one student share one row
+        var now = LocalDateTime.now();
+        var status = roster.getAttendanceStatus(now);
+        var newAttendances = studentIds.stream()
+                .filter(studentId -> !attendances.containsKey(studentId))
+                .map(studentId -> Attendance.builder()
                         .studentId(studentId)
                         .courseId(courseId)
                         .courseScheduleId(courseScheduleId)
                         .createdAt(now)
                         .status(status)
-                        .build();
-                attendance = attendanceRepository.save(attendance);
+                        .build())
+                .toList();
+        var insertedAttendances = attendanceJdbcRepository.insertAttendances(newAttendances);
+        insertedAttendances.forEach(attendance -> attendances.put(attendance.getStudentId(), attendance));
+
+        // rows skipped by on conflict were inserted by a concurrent check-in, read them back
+        if (insertedAttendances.size() != newAttendances.size()) {
+            var conflictedStudentIds = studentIds.stream().filter(studentId -> !attendances.containsKey(studentId)).toList();
+            attendanceJdbcRepository.findAttendances(courseScheduleId, conflictedStudentIds)
+                    .forEach(attendance -> attendances.put(attendance.getStudentId(), attendance));
+        }
+
+        var results = new ArrayList<FaceAttendanceResult>();
+        var recognizedFaces = 0;
+        for (int i = 0; i < recognitions.size(); i++) {
+            var recognition = recognitions.get(i);
+            var result = FaceAttendanceResult.builder()
+                    .index(i)
+                    .fileName(files.get(i).getOriginalFilename());
+
+            if (!recognition.isRecognized()) {
+                results.add(result.errorCode(recognition.errorCode()).errorMessage(recognition.errorMessage()).build());
+                continue;
             }
+            recognizedFaces++;
 
-            var course = courseRepository.findById(courseId)
-                    .orElseThrow(() -> new AppException(ERROR_COURSE_NOT_FOUND.getCode(), ERROR_COURSE_NOT_FOUND.getMessage()));
-
-
-            var response =  AttendanceResponse.builder()
-                    .attendanceId(attendance.getId())
-                    .studentId(studentId)
-                    .studentNo(studentProfile.getStudentNo())
-                    .studentNameTh(studentProfile.getStudentNameTh())
-                    .studentNameEn(studentProfile.getStudentNameEn())
-                    .courseId(courseId)
-                    .courseScheduleId(courseScheduleId)
-                    .courseCode(course.getCourseCode())
-                    .createdAt(attendance.getCreatedAt())
-                    .status(status)
-                    .statusDesc(status.getDesc())
-                    .remark(null)
-                    .build();
-            log.info("attendance response = {}", response);
-            return response;
-        } else {
-            throw new AppException(ERROR_INTERNAL_API_CALL.getCode(), ERROR_INTERNAL_API_CALL.getMessage());
+            var studentId = recognition.userId();
+            var attendance = attendances.get(studentId);
+            var studentError = studentErrors.get(studentId);
+            if (studentError != null) {
+                results.add(result.errorCode(studentError.getCode()).errorMessage(studentError.getMessage()).build());
+                continue;
+            }
+            if (attendance == null) {
+                results.add(result
+                        .errorCode(ERROR_ENROLLMENT_NOT_FOUND.getCode())
+                        .errorMessage(ERROR_ENROLLMENT_NOT_FOUND.format(notEnrolledProfiles.get(studentId).getStudentNo()))
+                        .build());
+                continue;
+            }
+
+            var studentProfile = studentProfiles.get(studentId);
+            results.add(result
+                    .success(true)
+                    .attendance(AttendanceResponse.builder()
+                            .attendanceId(attendance.getId())
+                            .studentId(studentId)
+                            .studentNo(studentProfile.getStudentNo())
+                            .studentNameTh(studentProfile.getStudentNameTh())
+                            .studentNameEn(studentProfile.getStudentNameEn())
+                            .courseId(courseId)
+                            .courseScheduleId(courseScheduleId)
+                            .courseCode(roster.courseCode)
+                            .createdAt(attendance.getCreatedAt())
+                            .status(attendance.getStatus())
+                            .statusDesc(attendance.getStatus().getDesc())
+                            .remark(attendance.getRemark())
+                            .build())
+                    .build());
         }
+
+        return BulkAttendanceResponse.builder()
+                .courseId(courseId)
+                .courseScheduleId(courseScheduleId)
+                .courseCode(roster.courseCode)
+                .totalFaces(recognitions.size())
+                .recognizedFaces(recognizedFaces)
+                .insertedRow(insertedAttendances.size())
+                .results(results)
+                .build();
+    }
+
+    // hikaricp.connections.acquire / usage show pool wait and hold time, this splits the check-in time by phase
+    private <T> T timed(String phase, String mode, Supplier<T> supplier) {
+        return Timer.builder("attendance.check.in")
+                .tag("phase", phase)
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(supplier);
+    }
+
+    private AttendanceStatusEnum getAttendanceStatus(CourseSchedule schedule, LocalDateTime now) {
+        LocalTime lateLimit = schedule.getStartTime().plusMinutes(LATE_THRESHOLD_MINUTES);
+
+        if (now.toLocalTime().isAfter(lateLimit)) {
+            return AttendanceStatusEnum.LATE;
+        }
+        return AttendanceStatusEnum.PRESENT;
     }
 
     @Transactional
@@ -139,9 +292,22 @@ public class FaceService {
                         ERROR_ENROLLMENT_NOT_FOUND.format(studentProfile.getStudentNo()))
                 );
 
-        var attendance = attendanceRepository.findFirstByStudentIdAndCourseScheduleIdOrderByIdDesc(studentId, courseScheduleId);
-        attendance.setRemark(remark);
-        attendanceRepository.save(attendance);
+        var schedule = courseScheduleRepository.findById(courseScheduleId)
+                .orElseThrow(() -> new AppException(
+                        ERROR_SCHEDULE_NOT_FOUND.getCode(),
+                        ERROR_SCHEDULE_NOT_FOUND.format(courseScheduleId)
+                ));
+
+        // set remark of the existing attendance, or check in the student when there is none yet
+        var now = LocalDateTime.now();
+        var attendance = attendanceJdbcRepository.upsertRemark(Attendance.builder()
+                .studentId(studentId)
+                .courseId(courseId)
+                .courseScheduleId(courseScheduleId)
+                .createdAt(now)
+                .status(getAttendanceStatus(schedule, now))
+                .remark(remark)
+                .build());
 
         var course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new AppException(ERROR_COURSE_NOT_FOUND.getCode(), ERROR_COURSE_NOT_FOUND.getMessage()));
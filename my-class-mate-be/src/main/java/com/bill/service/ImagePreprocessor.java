@@ -0,0 +1,290 @@
+package com.bill.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// downscale and re-encode camera images before sending them to fast-api,
+// any failure falls back to the original upload so recognition never breaks because of this stage
+@Slf4j
+@Component
+public class ImagePreprocessor {
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    @Value("${app.face.preprocess.enabled}")
+    private boolean enabled;
+
+    @Value("${app.face.preprocess.max-edge}")
+    private int maxEdge;
+
+    @Value("${app.face.preprocess.jpeg-quality}")
+    private float jpegQuality;
+
+    @Value("${app.face.preprocess.workers}")
+    private int workers;
+
+    @Value("${app.face.preprocess.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${app.face.preprocess.timeout-ms}")
+    private long timeoutMs;
+
+    private ThreadPoolTaskExecutor imageExecutor;
+
+    @PostConstruct
+    public void init() {
+        // bounded so concurrent decodes (~50MB per 12MP photo) cannot exhaust the heap
+        imageExecutor = new ThreadPoolTaskExecutor();
+        imageExecutor.setCorePoolSize(workers);
+        imageExecutor.setMaxPoolSize(workers);
+        imageExecutor.setQueueCapacity(queueCapacity);
+        imageExecutor.setThreadNamePrefix("image-");
+        imageExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        imageExecutor.shutdown();
+    }
+
+    public Resource preprocess(MultipartFile file) {
+        if (!enabled) {
+            return file.getResource();
+        }
+
+        Future<Resource> future = null;
+        try {
+            future = imageExecutor.submit(() -> downscale(file));
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TaskRejectedException e) {
+            log.warn("ImagePreprocessor executor is full, send original file = {}", file.getOriginalFilename());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("ImagePreprocessor timeout after {} ms, send original file = {}", timeoutMs, file.getOriginalFilename());
+        } catch (ExecutionException e) {
+            log.warn("ImagePreprocessor cannot process file = {}, send original", file.getOriginalFilename(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return file.getResource();
+    }
+
+    Resource downscale(MultipartFile file) throws IOException {
+        var startMillis = System.currentTimeMillis();
+        int orientation;
+        try (var in = file.getInputStream()) {
+            orientation = readExifOrientation(in);
+        }
+
+        BufferedImage image;
+        try (var in = file.getInputStream()) {
+            image = ImageIO.read(in);
+        }
+
+        // unknown format or alpha channel (opencv drops alpha instead of compositing), keep original bytes
+        if (image == null || image.getColorModel().hasAlpha()) {
+            return file.getResource();
+        }
+
+        var isJpeg = MediaType.IMAGE_JPEG_VALUE.equals(file.getContentType());
+        var longEdge = Math.max(image.getWidth(), image.getHeight());
+        if (longEdge <= maxEdge && orientation == 1 && isJpeg) {
+            return file.getResource();
+        }
+
+        // fast-api (opencv imdecode) applies exif orientation, the re-encoded jpeg has no exif so rotate the pixels here
+        var output = orient(resize(image), orientation);
+        var bytes = encodeJpeg(output);
+
+        if (bytes.length >= file.getSize() && orientation == 1 && isJpeg) {
+            return file.getResource();
+        }
+
+        log.info("ImagePreprocessor {}x{} {} bytes -> {}x{} {} bytes, elapsed = {} ms",
+                image.getWidth(), image.getHeight(), file.getSize(),
+                output.getWidth(), output.getHeight(), bytes.length, System.currentTimeMillis() - startMillis);
+
+        // fast-api validates the extension, name the part after the new encoding
+        var originalFilename = StringUtils.getFilename(file.getOriginalFilename());
+        var filename = (originalFilename != null ? StringUtils.stripFilenameExtension(originalFilename) : "image") + ".jpg";
+        return new ByteArrayResource(bytes) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+
+    private BufferedImage resize(BufferedImage image) {
+        var scale = Math.min(1.0, (double) maxEdge / Math.max(image.getWidth(), image.getHeight()));
+        var targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        var targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        // halve step by step, a single bilinear pass over a large ratio aliases the detail the face detector relies on
+        var current = image;
+        var width = image.getWidth();
+        var height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            var next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            var g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return image;
+        }
+
+        var width = image.getWidth();
+        var height = image.getHeight();
+        var transform = new AffineTransform();
+        switch (orientation) {
+            case 2 -> { // mirror horizontal
+                transform.scale(-1, 1);
+                transform.translate(-width, 0);
+            }
+            case 3 -> { // rotate 180
+                transform.translate(width, height);
+                transform.rotate(Math.PI);
+            }
+            case 4 -> { // mirror vertical
+                transform.scale(1, -1);
+                transform.translate(0, -height);
+            }
+            case 5 -> { // transpose
+                transform.rotate(-Math.PI / 2);
+                transform.scale(-1, 1);
+            }
+            case 6 -> { // rotate 90 cw
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+            }
+            case 7 -> { // transverse
+                transform.scale(-1, 1);
+                transform.translate(-height, 0);
+                transform.translate(0, width);
+                transform.rotate(3 * Math.PI / 2);
+            }
+            case 8 -> { // rotate 270 cw
+                transform.translate(0, width);
+                transform.rotate(3 * Math.PI / 2);
+            }
+        }
+
+        var swap = orientation >= 5;
+        var oriented = new BufferedImage(swap ? height : width, swap ? width : height, BufferedImage.TYPE_INT_RGB);
+        var g = oriented.createGraphics();
+        try {
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return oriented;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        var writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        var param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+
+        var out = new ByteArrayOutputStream();
+        try (var ios = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // read orientation from the exif app1 segment of a jpeg, 1 (normal) when absent or not a jpeg
+    static int readExifOrientation(InputStream in) throws IOException {
+        var data = new DataInputStream(new BufferedInputStream(in));
+        try {
+            if (data.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+
+            while (true) {
+                var marker = data.readUnsignedShort();
+                // start of scan or end of image, no more metadata
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1;
+                }
+
+                var length = data.readUnsignedShort() - 2;
+                if (marker == 0xFFE1 && length > 14) {
+                    var segment = new byte[length];
+                    data.readFully(segment);
+                    if (segment[0] == 'E' && segment[1] == 'x' && segment[2] == 'i' && segment[3] == 'f') {
+                        return readTiffOrientation(segment, 6);
+                    }
+                } else {
+                    data.skipNBytes(length);
+                }
+            }
+        } catch (EOFException | IndexOutOfBoundsException e) {
+            return 1;
+        }
+    }
+
+    private static int readTiffOrientation(byte[] segment, int tiffStart) {
+        var littleEndian = segment[tiffStart] == 'I';
+        var ifdStart = tiffStart + readInt(segment, tiffStart + 4, littleEndian);
+        var entries = readShort(segment, ifdStart, littleEndian);
+
+        for (int i = 0; i < entries; i++) {
+            var entry = ifdStart + 2 + i * 12;
+            if (readShort(segment, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                return readShort(segment, entry + 8, littleEndian);
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] b, int offset, boolean littleEndian) {
+        return littleEndian
+                ? (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8
+                : (b[offset] & 0xFF) << 8 | (b[offset + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] b, int offset, boolean littleEndian) {
+        return littleEndian
+                ? readShort(b, offset, true) | readShort(b, offset + 2, true) << 16
+                : readShort(b, offset, false) << 16 | readShort(b, offset + 2, false);
+    }
+}
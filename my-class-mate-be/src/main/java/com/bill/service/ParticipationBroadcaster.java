@@ -0,0 +1,248 @@
+package com.bill.service;
+
+import com.bill.model.response.ParticipationResponse;
+import com.bill.model.response.RequestParticipationResponse;
+import com.bill.repository.ParticipationJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// in-process fan-out of participation events to lecturer dashboards over SSE, each subscriber has a bounded
+// buffer drained by its own sender thread while it has events, so a client whose socket stops taking data blocks
+// only itself. A subscriber that falls behind or whose send is stuck longer than send-timeout-ms is dropped and
+// reconnects with Last-Event-ID
+// try it: curl -N -H "X-Role: LECTURER" http://localhost:8080/my-class-mate/v1/participations/requests/{participationId}/stream
+// browser: new EventSource(".../v1/participations/requests/{participationId}/stream?role=LECTURER")
+@Slf4j
+@Component
+public class ParticipationBroadcaster {
+    private static final String REQUEST_EVENT = "request";
+    private static final String CLOSE_EVENT = "close";
+
+    @Autowired
+    private ParticipationJdbcRepository participationJdbcRepository;
+
+    @Value("${app.participation.stream.timeout-ms}")
+    private long timeoutMs;
+
+    @Value("${app.participation.stream.buffer-size}")
+    private int bufferSize;
+
+    @Value("${app.participation.stream.senders}")
+    private int senders;
+
+    @Value("${app.participation.stream.max-senders}")
+    private int maxSenders;
+
+    @Value("${app.participation.stream.send-timeout-ms}")
+    private long sendTimeoutMs;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private ThreadPoolTaskExecutor senderExecutor;
+
+    @PostConstruct
+    public void init() {
+        senderExecutor = new ThreadPoolTaskExecutor();
+        senderExecutor.setCorePoolSize(senders);
+        senderExecutor.setMaxPoolSize(maxSenders);
+        senderExecutor.setQueueCapacity(0); // a busy pool starts another thread instead of queueing behind a blocked send
+        senderExecutor.setThreadNamePrefix("sse-");
+        senderExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        senderExecutor.shutdown();
+    }
+
+    // requests after sinceId are replayed first, live events already covered by the replay are skipped by id
+    public SseEmitter subscribe(Long participationId, Long sinceId) {
+        var subscriber = new Subscriber(participationId, new SseEmitter(timeoutMs), sinceId != null ? sinceId : 0L);
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+
+        // register before reading the backlog so nothing committed in between is lost, live events wait until replay is queued
+        subscribers.computeIfAbsent(participationId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriber.start(participationJdbcRepository.findParticipationRequests(participationId, sinceId));
+        return subscriber.emitter;
+    }
+
+    public void publishRequest(RequestParticipationResponse request) {
+        publish(request.getParticipationId(), new Event(REQUEST_EVENT, request.getParticipationRequestId(), request));
+    }
+
+    public void publishClose(ParticipationResponse participation) {
+        publish(participation.getParticipationId(), new Event(CLOSE_EVENT, null, participation));
+    }
+
+    // keeps idle connections open through proxies and detects clients that went away
+    @Scheduled(fixedDelayString = "${app.participation.stream.heartbeat-ms}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(Event.HEARTBEAT)));
+    }
+
+    private void publish(Long participationId, Event event) {
+        var set = subscribers.get(participationId);
+        if (set != null) {
+            set.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.participationId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private record Event(String name, Long id, Object data) {
+        static final Event HEARTBEAT = new Event(null, null, null);
+    }
+
+    private class Subscriber {
+        final Long participationId;
+        final SseEmitter emitter;
+        final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean started;
+        volatile boolean closed;
+        volatile long sendStartedAt; // System.nanoTime() of the send in progress, 0 when not sending
+        List<RequestParticipationResponse> backlog = List.of();
+        long lastRequestId;
+
+        Subscriber(Long participationId, SseEmitter emitter, long lastRequestId) {
+            this.participationId = participationId;
+            this.emitter = emitter;
+            this.lastRequestId = lastRequestId;
+        }
+
+        // replay is sent ahead of live events, it is bounded by the round itself so it does not count against the buffer
+        void start(List<RequestParticipationResponse> backlog) {
+            this.backlog = backlog;
+            started = true;
+            scheduleDrain();
+        }
+
+        void offer(Event event) {
+            if (closed) {
+                return;
+            }
+            var sending = sendStartedAt;
+            if (sending != 0 && System.nanoTime() - sending > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs)) {
+                drop("send is blocked longer than " + sendTimeoutMs + " ms");
+                return;
+            }
+            if (!queue.offer(event)) {
+                drop("buffer of " + bufferSize + " events is full");
+                return;
+            }
+            if (started) {
+                scheduleDrain();
+            }
+        }
+
+        // never completes the emitter on the publishing thread, a send in progress holds it,
+        // the sender of this subscriber completes it once that send returns or fails
+        void drop(String reason) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            log.warn("ParticipationBroadcaster subscriber of participationId = {} is too slow, {}", participationId, reason);
+            remove(this);
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senderExecutor.execute(this::drain);
+                } catch (TaskRejectedException e) {
+                    // every sender is blocked on a subscriber, this one reconnects later
+                    log.warn("ParticipationBroadcaster no free sender for participationId = {}, max senders = {}", participationId, maxSenders);
+                    closed = true;
+                    remove(this);
+                    draining.set(false);
+                    emitter.complete();
+                }
+            }
+        }
+
+        void drain() {
+            try {
+                if (!closed) {
+                    for (var request : backlog) {
+                        send(new Event(REQUEST_EVENT, request.getParticipationRequestId(), request));
+                    }
+                    backlog = List.of();
+
+                    Event event;
+                    while (!closed && (event = queue.poll()) != null) {
+                        send(event);
+                    }
+                }
+                if (closed) {
+                    emitter.complete();
+                    return;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // client disconnected or emitter already completed
+                closed = true;
+                remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+
+            // an event offered after the last poll, or a drop, before draining was reset
+            if (closed || !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        void send(Event event) throws IOException {
+            SseEmitter.SseEventBuilder builder;
+            if (event == Event.HEARTBEAT) {
+                builder = SseEmitter.event().comment("heartbeat");
+            } else if (REQUEST_EVENT.equals(event.name())) {
+                if (event.id() <= lastRequestId) {
+                    return;
+                }
+                lastRequestId = event.id();
+                builder = SseEmitter.event().id(String.valueOf(event.id())).name(event.name()).data(event.data());
+            } else {
+                // close ends the stream of this round
+                builder = SseEmitter.event().name(event.name()).data(event.data());
+                closed = true;
+                remove(this);
+            }
+
+            sendStartedAt = System.nanoTime();
+            try {
+                emitter.send(builder);
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.bill.service;
+
+import com.bill.constant.ParticipationStatusEnum;
+import com.bill.model.response.RequestParticipationResponse;
+import com.bill.repository.entity.Participation;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// admission state of one participation round, present students and the request of each student (pending until written)
+// so validation and dedupe need no db read while a whole class requests at once
+class ParticipationRound {
+    final Long participationId;
+    final Long courseScheduleId;
+    final boolean closed;
+    private final Set<Long> presentStudentIds = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Long, CompletableFuture<RequestParticipationResponse>> requests = new ConcurrentHashMap<>();
+
+    // guarded by this, first-come order of the round's requests
+    private long sequence;
+    private LocalDateTime lastCreatedAt = LocalDateTime.MIN;
+
+    // sequences taken by a request that could not be queued, the flusher does not wait for them
+    private final Set<Long> skippedSequences = ConcurrentHashMap.newKeySet();
+
+    // flusher thread only, last sequence handed to an insert
+    long flushedSequence;
+
+    // removed from the registry, closed or deleted, a request holding this object reloads the round
+    private volatile boolean evicted;
+    private volatile boolean deleted;
+
+    ParticipationRound(Participation participation, Collection<Long> presentStudentIds,
+                       Collection<RequestParticipationResponse> existingRequests) {
+        this.participationId = participation.getId();
+        this.courseScheduleId = participation.getCourseScheduleId();
+        this.closed = ParticipationStatusEnum.CLOSE.equals(participation.getStatus());
+        this.presentStudentIds.addAll(presentStudentIds);
+        for (var request : existingRequests) {
+            requests.put(request.getStudentId(), CompletableFuture.completedFuture(request));
+        }
+    }
+
+    boolean isPresent(Long studentId) {
+        return presentStudentIds.contains(studentId);
+    }
+
+    // student checked in after the round was loaded
+    void markPresent(Long studentId) {
+        presentStudentIds.add(studentId);
+    }
+
+    // null when this student had no request yet and the given one is now the student's request
+    CompletableFuture<RequestParticipationResponse> putRequestIfAbsent(Long studentId, CompletableFuture<RequestParticipationResponse> request) {
+        return requests.putIfAbsent(studentId, request);
+    }
+
+    // failed write, the student may request again
+    void removeRequest(Long studentId, CompletableFuture<RequestParticipationResponse> request) {
+        requests.remove(studentId, request);
+    }
+
+    long nextSequence() {
+        return ++sequence;
+    }
+
+    void skip(long sequence) {
+        skippedSequences.add(sequence);
+    }
+
+    boolean takeSkipped(long sequence) {
+        return skippedSequences.remove(sequence);
+    }
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    void markEvicted() {
+        evicted = true;
+    }
+
+    // participation row deleted with its schedule, queued requests are not written
+    boolean isDeleted() {
+        return deleted;
+    }
+
+    void markDeleted() {
+        deleted = true;
+        evicted = true;
+    }
+
+    // never behind the previous request so created_at order matches sequence order even if the clock steps back
+    LocalDateTime nextCreatedAt() {
+        var now = LocalDateTime.now();
+        lastCreatedAt = now.isAfter(lastCreatedAt) ? now : lastCreatedAt;
+        return lastCreatedAt;
+    }
+}
@@ -0,0 +1,380 @@
+package com.bill.service;
+
+import com.bill.exceptionhandler.AppException;
+import com.bill.model.response.RequestParticipationResponse;
+import com.bill.repository.AttendanceJdbcRepository;
+import com.bill.repository.AttendanceRepository;
+import com.bill.repository.ParticipationJdbcRepository;
+import com.bill.repository.ParticipationRepository;
+import com.bill.repository.entity.ParticipationRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.bill.exceptionhandler.ErrorEnum.*;
+import static com.bill.service.AppUtils.runAfterCommit;
+
+// open participation rounds kept in memory, a request is validated and deduplicated against the round and then
+// written behind: one flusher thread inserts queued requests in small batches in sequence order and completes
+// the callers, so a whole class requesting at once costs a few inserts instead of four statements each.
+// The sequence is taken under the round monitor but queued outside it, the flusher restores sequence order per round
+@Slf4j
+@Component
+public class ParticipationRoundRegistry {
+    private static final long HELD_RECHECK_MS = 10;
+
+    @Autowired
+    private ParticipationRepository participationRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
+    @Autowired
+    private ParticipationJdbcRepository participationJdbcRepository;
+
+    @Autowired
+    private ParticipationBroadcaster participationBroadcaster;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.participation.admission.batch-size}")
+    private int batchSize;
+
+    @Value("${app.participation.admission.linger-ms}")
+    private long lingerMs;
+
+    @Value("${app.participation.admission.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${app.participation.admission.wait-timeout-ms}")
+    private long waitTimeoutMs;
+
+    @Value("${app.participation.admission.idle-minutes}")
+    private long idleMinutes;
+
+    private Cache<Long, ParticipationRound> rounds;
+
+    private BlockingQueue<PendingRequest> queue;
+
+    private ThreadPoolTaskExecutor flushExecutor;
+
+    // flusher thread only, requests waiting for an earlier sequence of the same round
+    private final Map<ParticipationRound, TreeMap<Long, PendingRequest>> held = new HashMap<>();
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        rounds = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        meterRegistry.gauge("participation.request.queue", queue, BlockingQueue::size);
+
+        // not a bean on purpose, a user defined executor would replace spring's applicationTaskExecutor
+        flushExecutor = new ThreadPoolTaskExecutor();
+        flushExecutor.setCorePoolSize(1);
+        flushExecutor.setMaxPoolSize(1);
+        flushExecutor.setThreadNamePrefix("participation-");
+        flushExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        flushExecutor.setAwaitTerminationSeconds(10);
+        flushExecutor.initialize();
+
+        running = true;
+        flushExecutor.execute(this::flushLoop);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // the loop writes what is still queued before it exits
+        running = false;
+        flushExecutor.shutdown();
+    }
+
+    // returns the student's request of the round, the first call per student queues the insert and waits until it is written
+    public RequestParticipationResponse request(Long participationId, Long studentId, Long courseScheduleId) {
+        // result = accepted, duplicate or the error code
+        var sample = Timer.start(meterRegistry);
+        var result = "accepted";
+        try {
+            while (true) {
+                var round = rounds.get(participationId, this::load);
+
+                // validate close participation
+                if (round.closed) {
+                    throw new AppException(ERROR_PARTICIPATION_CLOSED.getCode(), ERROR_PARTICIPATION_CLOSED.getMessage());
+                }
+
+                // validate student attendance, a student who checked in after the round was loaded is looked up once
+                if (!round.courseScheduleId.equals(courseScheduleId) || !isPresent(round, studentId)) {
+                    throw new AppException(ERROR_STUDENT_ATTENDANCE_NOT_FOUND.getCode(), ERROR_STUDENT_ATTENDANCE_NOT_FOUND.format(studentId, courseScheduleId));
+                }
+
+                // insert only first time
+                var future = new CompletableFuture<RequestParticipationResponse>();
+                var existing = round.putRequestIfAbsent(studentId, future);
+                if (existing != null) {
+                    result = "duplicate";
+                    return getRequest(round, studentId, existing);
+                }
+
+                // closed or deleted while this request was validated, the reloaded round decides
+                if (round.isEvicted()) {
+                    round.removeRequest(studentId, future);
+                    continue;
+                }
+
+                long sequence;
+                LocalDateTime createdAt;
+                synchronized (round) {
+                    sequence = round.nextSequence();
+                    createdAt = round.nextCreatedAt();
+                }
+                // a full queue is waited for at most wait-timeout-ms, and never while holding the round
+                if (!enqueue(new PendingRequest(round, studentId, sequence, createdAt, future))) {
+                    round.skip(sequence);
+                    round.removeRequest(studentId, future);
+                    log.warn("ParticipationRoundRegistry queue is full after {} ms, participationId = {}", waitTimeoutMs, participationId);
+                    throw new AppException(ERROR_PARTICIPATION_BUSY.getCode(), ERROR_PARTICIPATION_BUSY.getMessage());
+                }
+                return await(future);
+            }
+        } catch (AppException e) {
+            result = e.getCode();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("participation.request")
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+    }
+
+    // called inside the transaction that closes the round, the next request reloads it and sees CLOSE
+    public void evict(Long participationId) {
+        runAfterCommit(() -> {
+            var round = rounds.asMap().remove(participationId);
+            if (round != null) {
+                round.markEvicted();
+            }
+        });
+    }
+
+    // called inside the transaction that deletes the schedules and their participations, the next request reloads
+    // the round and gets not found, requests still queued for it are not written
+    public void evictCourseSchedules(Collection<Long> courseScheduleIds) {
+        runAfterCommit(() -> {
+            var iterator = rounds.asMap().values().iterator();
+            while (iterator.hasNext()) {
+                var round = iterator.next();
+                if (courseScheduleIds.contains(round.courseScheduleId)) {
+                    round.markDeleted();
+                    iterator.remove();
+                }
+            }
+        });
+    }
+
+    private ParticipationRound load(Long participationId) {
+        var participation = participationRepository.findById(participationId)
+                .orElseThrow(() -> new AppException(ERROR_PARTICIPATION_NOT_FOUND.getCode(), ERROR_PARTICIPATION_NOT_FOUND.getMessage()));
+        var presentStudentIds = attendanceJdbcRepository.findStudentIds(participation.getCourseScheduleId());
+        var existingRequests = participationJdbcRepository.findParticipationRequests(participationId, null);
+
+        log.info("ParticipationRoundRegistry load participationId = {}, present = {}, requests = {}",
+                participationId, presentStudentIds.size(), existingRequests.size());
+        return new ParticipationRound(participation, presentStudentIds, existingRequests);
+    }
+
+    private boolean isPresent(ParticipationRound round, Long studentId) {
+        if (round.isPresent(studentId)) {
+            return true;
+        }
+        if (attendanceRepository.findFirstByStudentIdAndCourseScheduleIdOrderByIdDesc(studentId, round.courseScheduleId) == null) {
+            return false;
+        }
+        round.markPresent(studentId);
+        return true;
+    }
+
+    // a repeat gets the current row (it may have been scored since), one still queued waits for the same write
+    private RequestParticipationResponse getRequest(ParticipationRound round, Long studentId,
+                                                    CompletableFuture<RequestParticipationResponse> existing) {
+        if (!existing.isDone()) {
+            return await(existing);
+        }
+        var current = participationJdbcRepository.findParticipationRequest(round.participationId, studentId);
+        return current != null ? current : await(existing);
+    }
+
+    private boolean enqueue(PendingRequest pending) {
+        try {
+            return queue.offer(pending, waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private RequestParticipationResponse await(CompletableFuture<RequestParticipationResponse> future) {
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AppException appException) {
+                throw appException;
+            }
+            throw new AppException(ERROR_GENERIC_ERROR.getCode(), ERROR_GENERIC_ERROR.getMessage());
+        } catch (TimeoutException e) {
+            // still queued, a retry of the same student waits for the same write
+            log.warn("ParticipationRoundRegistry request is not written after {} ms, queued = {}", waitTimeoutMs, queue.size());
+            throw new AppException(ERROR_GENERIC_ERROR.getCode(), ERROR_GENERIC_ERROR.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException(ERROR_GENERIC_ERROR.getCode(), ERROR_GENERIC_ERROR.getMessage());
+        }
+    }
+
+    private void flushLoop() {
+        var batch = new ArrayList<PendingRequest>(batchSize);
+        while (running || !queue.isEmpty() || !held.isEmpty()) {
+            try {
+                // held requests wait for a sequence that is still being queued or was skipped, look again soon
+                var first = queue.poll(held.isEmpty() ? 500 : HELD_RECHECK_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+
+                    // linger so requests arriving together share one insert
+                    var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                    while (batch.size() < batchSize) {
+                        var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                queue.drainTo(batch);
+                running = false;
+            }
+
+            flush(release(batch));
+            batch.clear();
+        }
+    }
+
+    // requests leave per round in sequence order, one whose predecessor is not queued yet is held back until the
+    // predecessor arrives or is skipped (its caller gave up on a full queue), on shutdown nothing is held back
+    private List<PendingRequest> release(List<PendingRequest> batch) {
+        for (var pending : batch) {
+            held.computeIfAbsent(pending.round(), round -> new TreeMap<>()).put(pending.sequence(), pending);
+        }
+
+        var released = new ArrayList<PendingRequest>();
+        var iterator = held.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            var round = entry.getKey();
+            var pendings = entry.getValue();
+            while (!pendings.isEmpty()) {
+                var next = round.flushedSequence + 1;
+                if (pendings.firstKey() == next || !running) {
+                    var first = pendings.pollFirstEntry();
+                    round.flushedSequence = first.getKey();
+                    if (round.isDeleted()) {
+                        // deleted with its schedule while queued, not written
+                        first.getValue().future().completeExceptionally(
+                                new AppException(ERROR_PARTICIPATION_NOT_FOUND.getCode(), ERROR_PARTICIPATION_NOT_FOUND.getMessage()));
+                    } else {
+                        released.add(first.getValue());
+                    }
+                } else if (round.takeSkipped(next)) {
+                    round.flushedSequence = next;
+                } else {
+                    break;
+                }
+            }
+            if (pendings.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        return released;
+    }
+
+    private void flush(List<PendingRequest> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // released in sequence order per round, sorting keeps it explicit
+        batch.sort(Comparator.comparing((PendingRequest pending) -> pending.round().participationId)
+                .thenComparingLong(PendingRequest::sequence));
+
+        var participationRequests = batch.stream()
+                .map(pending -> ParticipationRequest.builder()
+                        .participationId(pending.round().participationId)
+                        .studentId(pending.studentId())
+                        .createdAt(pending.createdAt())
+                        .isScored(false)
+                        .score(0)
+                        .build())
+                .toList();
+
+        try {
+            var inserted = new HashMap<String, RequestParticipationResponse>();
+            for (var response : participationJdbcRepository.insertParticipationRequests(participationRequests)) {
+                inserted.put(response.getParticipationId() + ":" + response.getStudentId(), response);
+            }
+
+            for (var pending : batch) {
+                var participationId = pending.round().participationId;
+                var response = inserted.get(participationId + ":" + pending.studentId());
+                if (response != null) {
+                    pending.future().complete(response);
+                    participationBroadcaster.publishRequest(response);
+                } else {
+                    // written before this round was loaded again, the existing request is the answer
+                    pending.future().complete(participationJdbcRepository.findParticipationRequest(participationId, pending.studentId()));
+                }
+            }
+            log.info("ParticipationRoundRegistry flush requests = {}, inserted = {}", batch.size(), inserted.size());
+        } catch (RuntimeException e) {
+            log.error("ParticipationRoundRegistry cannot write requests = {}", batch.size(), e);
+            for (var pending : batch) {
+                pending.round().removeRequest(pending.studentId(), pending.future());
+                pending.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    private record PendingRequest(ParticipationRound round, Long studentId, long sequence, LocalDateTime createdAt,
+                                  CompletableFuture<RequestParticipationResponse> future) {
+    }
+}
@@ -6,14 +6,13 @@ import com.bill.exceptionhandler.AppException;
 import com.bill.model.request.CreateParticipationRequest;
 import com.bill.model.request.EvaluateParticipationRequest;
 import com.bill.model.request.RequestParticipationRequest;
+import com.bill.model.response.EvaluateParticipationResponse;
 import com.bill.model.response.ParticipationResponse;
 import com.bill.model.response.RequestParticipationResponse;
-import com.bill.repository.AttendanceRepository;
 import com.bill.repository.CourseScheduleRepository;
+import com.bill.repository.ParticipationJdbcRepository;
 import com.bill.repository.ParticipationRepository;
-import com.bill.repository.ParticipationRequestRepository;
 import com.bill.repository.entity.Participation;
-import com.bill.repository.entity.ParticipationRequest;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -22,35 +21,34 @@ import org.apache.commons.lang3.StringUtils;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 import static com.bill.exceptionhandler.ErrorEnum.*;
+import static com.bill.service.AppUtils.runAfterCommit;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class ParticipationService {
+    private static final int ROUND_ALLOCATION_ATTEMPTS = 3;
+
     ModelMapper modelMapper;
     UserService userService;
-    StudentProfileService studentProfileService;
-    AttendanceRepository attendanceRepository;
     CourseScheduleRepository courseScheduleRepository;
     ParticipationRepository participationRepository;
-    ParticipationRequestRepository participationRequestRepository;
+    ParticipationJdbcRepository participationJdbcRepository;
+    ParticipationBroadcaster participationBroadcaster;
+    ParticipationRoundRegistry participationRoundRegistry;
 
     @Transactional
     public ParticipationResponse createParticipation(CreateParticipationRequest request) {
         var courseScheduleId = request.getCourseScheduleId();
-        // validate courseScheduleId
-        courseScheduleRepository.findById(courseScheduleId)
-                .orElseThrow(() -> new AppException(
-                        ERROR_SCHEDULE_NOT_FOUND.getCode(),
-                        ERROR_SCHEDULE_NOT_FOUND.format(courseScheduleId)
-                ));
 
         // validate lecturerId
         var user = userService.getUser(request.getLecturerId(), false);
@@ -58,20 +56,28 @@ public class ParticipationService {
             throw new AppException(ERROR_USER_NOT_LECTURER.getCode(), ERROR_USER_NOT_LECTURER.getMessage());
         }
 
-        // get latest round
-        var maxRound = participationRepository.findMaxRoundByCourseScheduleId(courseScheduleId);
-
         var participation = Participation.builder()
                 .courseScheduleId(courseScheduleId)
-                .round(maxRound + 1)
                 .topic(StringUtils.isNotBlank(request.getTopic()) ? request.getTopic() : "-")
                 .status(ParticipationStatusEnum.OPEN)
                 .createdBy(request.getLecturerId())
                 .createdAt(LocalDateTime.now())
                 .build();
-        participation = participationRepository.save(participation);
 
-        return mapToParticipationResponse(participation);
+        // round = latest round + 1 in the same statement, retried when a concurrent create took the same round
+        for (int attempt = 1; attempt <= ROUND_ALLOCATION_ATTEMPTS; attempt++) {
+            var inserted = participationJdbcRepository.insertNextRound(participation);
+            if (inserted != null) {
+                return mapToParticipationResponse(inserted);
+            }
+
+            // validate courseScheduleId, only when nothing was inserted
+            if (!courseScheduleRepository.existsById(courseScheduleId)) {
+                throw new AppException(ERROR_SCHEDULE_NOT_FOUND.getCode(), ERROR_SCHEDULE_NOT_FOUND.format(courseScheduleId));
+            }
+            log.info("createParticipation courseScheduleId = {} round taken concurrently, attempt = {}", courseScheduleId, attempt);
+        }
+        throw new AppException(ERROR_GENERIC_ERROR.getCode(), ERROR_GENERIC_ERROR.getMessage());
     }
 
     @Transactional
@@ -82,7 +88,11 @@ public class ParticipationService {
         participation.setClosedAt(LocalDateTime.now());
         participation = participationRepository.save(participation);
 
-        return mapToParticipationResponse(participation);
+        participationRoundRegistry.evict(participationId);
+
+        var response = mapToParticipationResponse(participation);
+        runAfterCommit(() -> participationBroadcaster.publishClose(response));
+        return response;
     }
 
     public List<ParticipationResponse> getParticipations(Long courseScheduleId) {
@@ -91,71 +101,41 @@ public class ParticipationService {
         return mapToParticipationResponse(participations);
     }
 
-    @Transactional
+    // validated and deduplicated in memory, written behind in batches in first-come order
     public RequestParticipationResponse requestParticipation(RequestParticipationRequest request) {
-        var participationId = request.getParticipationId();
-        var studentId = request.getStudentId();
-        var courseScheduleId = request.getCourseScheduleId();
+        return participationRoundRegistry.request(request.getParticipationId(), request.getStudentId(), request.getCourseScheduleId());
+    }
+
+    // one joined query per poll, sinceId = last participationRequestId the caller already has
+    public List<RequestParticipationResponse> getParticipationRequests(Long participationId, Long sinceId) {
+        return participationJdbcRepository.findParticipationRequests(participationId, sinceId);
+    }
+
+    // live queue for the lecturer dashboard, replays requests after sinceId then pushes new requests and the close event
+    public SseEmitter streamParticipationRequests(Long participationId, Long sinceId) {
         var participation = participationRepository.findById(participationId)
                 .orElseThrow(() -> new AppException(ERROR_PARTICIPATION_NOT_FOUND.getCode(), ERROR_PARTICIPATION_NOT_FOUND.getMessage()));
 
-        // validate close participation
+        var emitter = participationBroadcaster.subscribe(participationId, sinceId);
+        // already closed round, replay then end the stream
         if (ParticipationStatusEnum.CLOSE.equals(participation.getStatus())) {
-            throw new AppException(ERROR_PARTICIPATION_CLOSED.getCode(), ERROR_PARTICIPATION_CLOSED.getMessage());
-        }
-
-        // validate student attendance
-        var attendance = attendanceRepository.findFirstByStudentIdAndCourseScheduleIdOrderByIdDesc(studentId, courseScheduleId);
-        if (attendance == null) {
-            throw new AppException(ERROR_STUDENT_ATTENDANCE_NOT_FOUND.getCode(), ERROR_STUDENT_ATTENDANCE_NOT_FOUND.format(studentId, courseScheduleId));
-        }
-
-        // insert only first time
-        var participationRequest = participationRequestRepository.findByParticipationIdAndStudentId(participationId, studentId);
-        if (participationRequest == null) {
-            participationRequest = ParticipationRequest.builder()
-                    .participationId(participationId)
-                    .studentId(studentId)
-                    .createdAt(LocalDateTime.now())
-                    .isScored(false)
-                    .score(0)
-                    .build();
-
-            participationRequest = participationRequestRepository.save(participationRequest);
-        }
-
-        return mapToRequestParticipationResponse(participationRequest);
-    }
-
-    public List<RequestParticipationResponse> getParticipationRequests(Long participationId) {
-        var participationRequests = participationRequestRepository.findByParticipationIdOrderByCreatedAtAsc(participationId);
-        var responses = new ArrayList<RequestParticipationResponse>();
-        for (var participationRequest : participationRequests) {
-            var response = mapToRequestParticipationResponse(participationRequest);
-            responses.add(response);
+            participationBroadcaster.publishClose(mapToParticipationResponse(participation));
         }
-        return responses;
+        return emitter;
     }
 
-    @Transactional
-    public void evaluateParticipationRequest(EvaluateParticipationRequest request) {
-        var participationRequests = new ArrayList<ParticipationRequest>();
+    // one update for the whole round, a request already scored keeps its score
+    public EvaluateParticipationResponse evaluateParticipationRequest(EvaluateParticipationRequest request) {
+        // first score of a duplicated id wins, as when scoring one by one
+        var scores = new LinkedHashMap<Long, Integer>();
         for (var evaluate : request.getEvaluates()) {
-            var participationRequestId = evaluate.getParticipationRequestId();
-            var participationRequest = participationRequestRepository.findById(participationRequestId)
-                    .orElseThrow(() -> new AppException(ERROR_PARTICIPATION_REQUEST_NOT_FOUND.getCode(), ERROR_PARTICIPATION_REQUEST_NOT_FOUND.format(participationRequestId)));
-
-            if (Boolean.FALSE.equals(participationRequest.getIsScored())) {
-                var score = evaluate.getScore();
-                log.info("evaluateParticipationRequest participationRequestId = {}, score = {}", participationRequestId, score);
-                participationRequest.setScore(score);
-                participationRequest.setIsScored(true);
-                participationRequests.add(participationRequest);
-            } else {
-                log.info("evaluateParticipationRequest participationRequestId = {} has score already", participationRequestId);
-            }
+            scores.putIfAbsent(evaluate.getParticipationRequestId(), evaluate.getScore());
         }
-        participationRequestRepository.saveAll(participationRequests);
+
+        var response = participationJdbcRepository.scoreParticipationRequests(scores);
+        log.info("evaluateParticipationRequest scored = {}, already scored = {}, not found = {}",
+                response.getScoredRow(), response.getAlreadyScoredRow(), response.getNotFoundParticipationRequestIds());
+        return response;
     }
 
     private ParticipationResponse mapToParticipationResponse(Participation participation) {
@@ -173,14 +153,4 @@ public class ParticipationService {
         return responses;
     }
 
-    private RequestParticipationResponse mapToRequestParticipationResponse(ParticipationRequest participationRequest) {
-        var response = modelMapper.map(participationRequest, RequestParticipationResponse.class);
-        response.setParticipationRequestId(participationRequest.getId());
-        var studentProfile = studentProfileService.getStudentProfile(participationRequest.getStudentId());
-        response.setStudentNo(studentProfile.getStudentNo());
-        response.setStudentNameTh(studentProfile.getStudentNameTh());
-        response.setStudentNameEn(studentProfile.getStudentNameEn());
-        return response;
-    }
-
 }
@@ -0,0 +1,63 @@
+package com.bill.service;
+
+import com.bill.constant.AttendanceStatusEnum;
+import com.bill.model.response.CourseScheduleForReportResponse;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// pivot index of report cells keyed by (studentId, courseScheduleId), built in one pass over the report
+// so each cell lookup while writing the excel is O(1) instead of scanning the schedule lists
+class ReportMatrix {
+    private final Map<CellKey, AttendanceStatusEnum> attendanceStatuses = new HashMap<>();
+    private final Map<CellKey, ParticipationCell> participations = new HashMap<>();
+
+    static ReportMatrix of(List<CourseScheduleForReportResponse> schedules) {
+        var matrix = new ReportMatrix();
+        for (var schedule : schedules) {
+            var courseScheduleId = schedule.getCourseScheduleId();
+
+            if (schedule.getAttendances() != null) {
+                for (var attendance : schedule.getAttendances()) {
+                    var key = new CellKey(attendance.getStudentId(), courseScheduleId);
+                    // first attendance wins, null status is kept to mark "seen"
+                    if (!matrix.attendanceStatuses.containsKey(key)) {
+                        matrix.attendanceStatuses.put(key, attendance.getStatus());
+                    }
+                }
+            }
+
+            if (schedule.getParticipations() != null) {
+                for (var participation : schedule.getParticipations()) {
+                    if (participation.getRequestParticipations() == null) continue;
+
+                    for (var request : participation.getRequestParticipations()) {
+                        var key = new CellKey(request.getStudentId(), courseScheduleId);
+                        var cell = matrix.participations.computeIfAbsent(key, k -> new ParticipationCell());
+                        cell.count++;
+                        cell.score += request.getScore() != null ? request.getScore() : 0;
+                    }
+                }
+            }
+        }
+        return matrix;
+    }
+
+    AttendanceStatusEnum getAttendanceStatus(Long studentId, Long courseScheduleId) {
+        return attendanceStatuses.get(new CellKey(studentId, courseScheduleId));
+    }
+
+    // null when student has no participation request in this schedule
+    ParticipationCell getParticipation(Long studentId, Long courseScheduleId) {
+        return participations.get(new CellKey(studentId, courseScheduleId));
+    }
+
+    static class ParticipationCell {
+        int count;
+        int score;
+    }
+
+    private record CellKey(Long studentId, Long courseScheduleId) {
+    }
+}
@@ -14,17 +14,21 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static com.bill.constant.Constants.EXCEL_MAX_COLUMN_WIDTH;
+import static com.bill.constant.Constants.EXCEL_ROW_ACCESS_WINDOW;
 import static com.bill.exceptionhandler.ErrorEnum.ERROR_EXPORT_EXCEL;
 
 @Slf4j
@@ -35,6 +39,7 @@ public class ReportService {
     ModelMapper modelMapper;
     CourseService courseService;
     CourseScheduleRepository courseScheduleRepository;
+    ExcelMetrics excelMetrics;
 
     public ReportResponse getReports(Long courseId, Long courseScheduleIdParam) {
         var response = new ReportResponse();
@@ -115,10 +120,19 @@ public class ReportService {
         return response;
     }
 
-    public byte[] exportReports(Long courseId, Long courseScheduleIdParam) {
+    public StreamingResponseBody exportReports(Long courseId, Long courseScheduleIdParam) {
+        // load data before streaming so that query error still return normal error response
         var report = getReports(courseId, courseScheduleIdParam);
+        return out -> writeReports(courseId, report, out);
+    }
 
-        try (var workbook = new XSSFWorkbook(); var out = new ByteArrayOutputStream()) {
+    private void writeReports(Long courseId, ReportResponse report, OutputStream out) {
+        var startNanos = System.nanoTime();
+        // keep only EXCEL_ROW_ACCESS_WINDOW rows in memory, the rest flushed to compressed temp file,
+        // closing the workbook deletes the temp files
+        var workbook = new SXSSFWorkbook(EXCEL_ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try (workbook) {
             // Font & Style Setup
             Font headerFont = workbook.createFont();
             headerFont.setBold(true);
@@ -139,6 +153,10 @@ public class ReportService {
             dataStyle.setWrapText(true);
             dataStyle.setVerticalAlignment(VerticalAlignment.CENTER);
 
+            CellStyle centerStyle = workbook.createCellStyle();
+            centerStyle.cloneStyleFrom(dataStyle);
+            centerStyle.setAlignment(HorizontalAlignment.CENTER);
+
             // ======================== Prepare Data =========================
             var schedules = report.getSchedules().stream()
                     .sorted(Comparator.comparing(CourseScheduleForReportResponse::getScheduleDate))
@@ -156,6 +174,8 @@ public class ReportService {
                     .sorted(Comparator.comparing(CourseScheduleForReportResponse.AttendanceForReport::getStudentNo))
                     .toList();
 
+            var matrix = ReportMatrix.of(schedules);
+
             var scheduleHeaders = schedules.stream()
                     .map(s -> formatThaiDateHeader(s.getScheduleDate()))
                     .toList();
@@ -168,11 +188,13 @@ public class ReportService {
             attHeaders.add("อัตราการขาดเรียน (%)");
 
             // Header
+            var attColumnLengths = new int[attHeaders.size()];
             Row attHeaderRow = attendanceSheet.createRow(0);
             for (int i = 0; i < attHeaders.size(); i++) {
                 var cell = attHeaderRow.createCell(i);
                 cell.setCellValue(attHeaders.get(i));
                 cell.setCellStyle(cyanHeaderStyle);
+                attColumnLengths[i] = attHeaders.get(i).length();
             }
             attendanceSheet.createFreezePane(0, 1);
             attendanceSheet.setAutoFilter(new CellRangeAddress(0, 0, 0, attHeaders.size() - 1));
@@ -189,13 +211,10 @@ public class ReportService {
                 int totalAbsent = 0;
 
                 for (var schedule : schedules) {
-                    var att = CollectionUtils.isEmpty(schedule.getAttendances()) ? null :
-                            schedule.getAttendances().stream()
-                                    .filter(a -> a.getStudentId().equals(student.getStudentId()))
-                                    .findFirst().orElse(null);
+                    var status = matrix.getAttendanceStatus(student.getStudentId(), schedule.getCourseScheduleId());
 
-                    String statusText = att != null && att.getStatus() != null
-                            ? att.getStatus().name()
+                    String statusText = status != null
+                            ? status.name()
                             : "-";
 
                     if ("ABSENT".equalsIgnoreCase(statusText)) totalAbsent++;
@@ -207,9 +226,9 @@ public class ReportService {
                 String absentText = String.format("%d/%d = %.1f%%", totalAbsent, totalSessions, absentRate);
                 row.createCell(c).setCellValue(absentText);
 
-                setCell(attHeaders, row, workbook, dataStyle);
+                setCell(attHeaders, row, dataStyle, centerStyle, attColumnLengths);
             }
-            autoResize(attendanceSheet, attHeaders.size());
+            resize(attendanceSheet, attColumnLengths);
 
             // ===================== Sheet 2: Participation =====================
             var participationSheet = workbook.createSheet("การมีส่วนร่วม");
@@ -219,11 +238,13 @@ public class ReportService {
             partHeaders.addAll(List.of("จำนวนครั้งการมีส่วนร่วมทั้งหมด (ครั้ง)", "คะแนนการมีส่วนร่วมสะสม (คะแนน)"));
 
             // Header
+            var partColumnLengths = new int[partHeaders.size()];
             Row partHeaderRow = participationSheet.createRow(0);
             for (int i = 0; i < partHeaders.size(); i++) {
                 Cell cell = partHeaderRow.createCell(i);
                 cell.setCellValue(partHeaders.get(i));
                 cell.setCellStyle(cyanHeaderStyle);
+                partColumnLengths[i] = partHeaders.get(i).length();
             }
             participationSheet.createFreezePane(0, 1);
             participationSheet.setAutoFilter(new CellRangeAddress(0, 0, 0, partHeaders.size() - 1));
@@ -241,24 +262,12 @@ public class ReportService {
                 int totalScore = 0;
 
                 for (var schedule : schedules) {
-                    var participations = schedule.getParticipations();
+                    var participation = matrix.getParticipation(student.getStudentId(), schedule.getCourseScheduleId());
                     Integer score = null;
-                    int countInThisSchedule = 0;
-
-                    if (!CollectionUtils.isEmpty(participations)) {
-                        var requests = participations.stream()
-                                .filter(p -> p.getRequestParticipations() != null)
-                                .flatMap(p -> p.getRequestParticipations().stream())
-                                .filter(r -> r.getStudentId().equals(student.getStudentId()))
-                                .toList();
-
-                        countInThisSchedule = requests.size();
-                        totalParticipation += countInThisSchedule;
-
-                        score = requests.stream()
-                                .map(r -> r.getScore() != null ? r.getScore() : 0)
-                                .reduce(Integer::sum)
-                                .orElse(null);
+
+                    if (participation != null) {
+                        totalParticipation += participation.count;
+                        score = participation.score;
                     }
 
                     String displayValue = "-";
@@ -273,13 +282,14 @@ public class ReportService {
                 row.createCell(c++).setCellValue(totalParticipation);
                 row.createCell(c).setCellValue(totalScore);
 
-                setCell(partHeaders, row, workbook, dataStyle);
+                setCell(partHeaders, row, dataStyle, centerStyle, partColumnLengths);
             }
-            autoResize(participationSheet, partHeaders.size());
+            resize(participationSheet, partColumnLengths);
 
-            // ===================== Write to ByteArray =====================
+            // ===================== Write to OutputStream =====================
             workbook.write(out);
-            return out.toByteArray();
+            // one row per student on each of the two sheets
+            excelMetrics.record("export", "report", startNanos, students.size() * 2L);
 
         } catch (Exception e) {
             log.error("Error exporting report for courseId {}: {}", courseId, e.getMessage(), e);
@@ -287,27 +297,30 @@ public class ReportService {
         }
     }
 
-    private void setCell(List<String> attHeaders, Row row, XSSFWorkbook workbook, CellStyle dataStyle) {
+    private void setCell(List<String> attHeaders, Row row, CellStyle dataStyle, CellStyle centerStyle, int[] columnLengths) {
         for (int i = 0; i < attHeaders.size(); i++) {
             var cell = row.getCell(i);
             if (cell == null) continue;
 
             if (i >= 3) { // หลังจากคอลัมน์ 0–2 (รหัส, ชื่อไทย, ชื่ออังกฤษ)
-                CellStyle centerStyle = workbook.createCellStyle();
-                centerStyle.cloneStyleFrom(dataStyle);
-                centerStyle.setAlignment(HorizontalAlignment.CENTER);
-                centerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
                 cell.setCellStyle(centerStyle);
             } else {
                 cell.setCellStyle(dataStyle);
             }
+
+            var value = CellType.NUMERIC.equals(cell.getCellType())
+                    ? String.valueOf((long) cell.getNumericCellValue())
+                    : cell.getStringCellValue();
+            columnLengths[i] = Math.max(columnLengths[i], value != null ? value.length() : 0);
         }
     }
 
-    private void autoResize(Sheet sheet, int columns) {
-        for (int i = 0; i < columns; i++) {
-            sheet.autoSizeColumn(i);
-            sheet.setColumnWidth(i, (int) (sheet.getColumnWidth(i) * 1.1));
+    // width from tracked max length instead of autoSizeColumn, which measures every cell with AWT fonts
+    private void resize(SXSSFSheet sheet, int[] columnLengths) {
+        for (int i = 0; i < columnLengths.length; i++) {
+            // 1 char = 256 units, fonts are 16-18pt so scale up from default 11pt
+            var width = (int) ((columnLengths[i] + 2) * 256 * 1.6);
+            sheet.setColumnWidth(i, Math.min(width, EXCEL_MAX_COLUMN_WIDTH));
         }
     }
 
@@ -0,0 +1,54 @@
+package com.bill.service;
+
+import com.bill.constant.AttendanceStatusEnum;
+import com.bill.model.response.StudentProfileResponse;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+// read-only snapshot of one course schedule used by check-in, enrolled student ids are kept as a sorted long[]
+// so membership is a binary search without boxing, display data sits at the same index
+class SessionRoster {
+    final Long courseId;
+    final Long courseScheduleId;
+    final String courseCode;
+    final LocalTime lateLimit;
+    final LocalDateTime endAt;
+    private final long[] studentIds;
+    private final StudentProfileResponse[] students;
+
+    SessionRoster(Long courseId, Long courseScheduleId, String courseCode, LocalTime lateLimit, LocalDateTime endAt,
+                  Collection<Long> enrolledStudentIds, Map<Long, StudentProfileResponse> studentProfiles) {
+        this.courseId = courseId;
+        this.courseScheduleId = courseScheduleId;
+        this.courseCode = courseCode;
+        this.lateLimit = lateLimit;
+        this.endAt = endAt;
+        this.studentIds = enrolledStudentIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        this.students = new StudentProfileResponse[studentIds.length];
+        for (int i = 0; i < studentIds.length; i++) {
+            students[i] = studentProfiles.get(studentIds[i]);
+        }
+    }
+
+    boolean isEnrolled(long studentId) {
+        return Arrays.binarySearch(studentIds, studentId) >= 0;
+    }
+
+    // null when the student is not enrolled in the course, or is enrolled but was deleted or has no student profile
+    StudentProfileResponse getStudent(long studentId) {
+        var index = Arrays.binarySearch(studentIds, studentId);
+        return index >= 0 ? students[index] : null;
+    }
+
+    AttendanceStatusEnum getAttendanceStatus(LocalDateTime now) {
+        return now.toLocalTime().isAfter(lateLimit) ? AttendanceStatusEnum.LATE : AttendanceStatusEnum.PRESENT;
+    }
+
+    boolean isExpired(LocalDateTime now) {
+        return now.isAfter(endAt);
+    }
+}
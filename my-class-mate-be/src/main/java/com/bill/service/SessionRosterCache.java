@@ -0,0 +1,136 @@
+package com.bill.service;
+
+import com.bill.exceptionhandler.AppException;
+import com.bill.repository.CourseRepository;
+import com.bill.repository.CourseScheduleRepository;
+import com.bill.repository.EnrollmentRepository;
+import com.bill.repository.entity.CourseSchedule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bill.constant.Constants.LATE_THRESHOLD_MINUTES;
+import static com.bill.exceptionhandler.ErrorEnum.ERROR_COURSE_NOT_FOUND;
+import static com.bill.exceptionhandler.ErrorEnum.ERROR_SCHEDULE_NOT_FOUND;
+import static com.bill.service.AppUtils.runNowAndAfterCommit;
+
+// per courseScheduleId roster of sessions in progress, loaded on first check-in or shortly before the session starts
+// and evicted after the schedule end_time, so a check-in only needs the attendance insert
+@Slf4j
+@Component
+public class SessionRosterCache {
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CourseScheduleRepository courseScheduleRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentProfileService studentProfileService;
+
+    @Value("${app.roster.preload-minutes}")
+    private long preloadMinutes;
+
+    private final Map<Long, SessionRoster> rosters = new ConcurrentHashMap<>();
+
+    // bumped on every invalidation, a roster loaded before an invalidation is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    SessionRoster getRoster(Long courseId, Long courseScheduleId) {
+        var now = LocalDateTime.now();
+        var roster = rosters.get(courseScheduleId);
+        if (roster != null && !roster.isExpired(now)) {
+            return validateCourse(roster, courseId);
+        }
+
+        var loadGeneration = generation.get();
+        var schedule = courseScheduleRepository.findById(courseScheduleId)
+                .orElseThrow(() -> new AppException(
+                        ERROR_SCHEDULE_NOT_FOUND.getCode(),
+                        ERROR_SCHEDULE_NOT_FOUND.format(courseScheduleId)
+                ));
+        roster = load(schedule);
+
+        // sessions already ended (late corrections) are served from the db every time
+        if (!roster.isExpired(now) && generation.get() == loadGeneration) {
+            rosters.put(courseScheduleId, roster);
+        }
+        return validateCourse(roster, courseId);
+    }
+
+    // called inside the transaction that changes the course
+    public void invalidateCourse(Long courseId) {
+        runNowAndAfterCommit(() -> evictCourse(courseId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.roster.refresh-interval-ms}")
+    public void refresh() {
+        var now = LocalDateTime.now();
+        rosters.values().removeIf(roster -> roster.isExpired(now));
+
+        // preload sessions starting soon so the first check-in does not pay the load
+        var preloadUntil = now.toLocalTime().plusMinutes(preloadMinutes);
+        for (var schedule : courseScheduleRepository.findByScheduleDateOrderByStartTimeAsc(LocalDate.now())) {
+            if (rosters.containsKey(schedule.getId())
+                    || schedule.getStartTime().isAfter(preloadUntil)
+                    || !now.toLocalTime().isBefore(schedule.getEndTime())) {
+                continue;
+            }
+
+            var loadGeneration = generation.get();
+            try {
+                var roster = load(schedule);
+                if (generation.get() == loadGeneration) {
+                    rosters.putIfAbsent(schedule.getId(), roster);
+                }
+            } catch (AppException e) {
+                log.warn("SessionRosterCache cannot preload courseScheduleId = {}, {}", schedule.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void evictCourse(Long courseId) {
+        generation.incrementAndGet();
+        rosters.values().removeIf(roster -> roster.courseId.equals(courseId));
+    }
+
+    private SessionRoster load(CourseSchedule schedule) {
+        var courseId = schedule.getCourseId();
+        var course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new AppException(ERROR_COURSE_NOT_FOUND.getCode(), ERROR_COURSE_NOT_FOUND.getMessage()));
+        var enrolledStudentIds = enrollmentRepository.findStudentIdsByCourseId(courseId);
+        // a deleted or profile-less student stays enrolled without display data, only that student's check-in fails
+        var studentProfiles = studentProfileService.findStudentProfiles(enrolledStudentIds);
+
+        log.info("SessionRosterCache load courseScheduleId = {}, students = {}, unresolved = {}",
+                schedule.getId(), enrolledStudentIds.size(), enrolledStudentIds.size() - studentProfiles.size());
+        return new SessionRoster(
+                courseId,
+                schedule.getId(),
+                course.getCourseCode(),
+                schedule.getStartTime().plusMinutes(LATE_THRESHOLD_MINUTES),
+                schedule.getScheduleDate().atTime(schedule.getEndTime()),
+                enrolledStudentIds,
+                studentProfiles
+        );
+    }
+
+    // path courseId must own the schedule, same error as a missing course
+    private SessionRoster validateCourse(SessionRoster roster, Long courseId) {
+        if (!roster.courseId.equals(courseId)) {
+            throw new AppException(ERROR_COURSE_NOT_FOUND.getCode(), ERROR_COURSE_NOT_FOUND.getMessage());
+        }
+        return roster;
+    }
+}
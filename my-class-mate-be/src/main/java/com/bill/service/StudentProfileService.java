@@ -4,8 +4,10 @@ import com.bill.constant.RoleEnum;
 import com.bill.exceptionhandler.AppException;
 import com.bill.model.request.UpdateStudentProfileRequest;
 import com.bill.model.response.StudentProfileResponse;
+import com.bill.model.response.UserResponse;
 import com.bill.repository.StudentProfileRepository;
 import com.bill.repository.entity.StudentProfile;
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -15,10 +17,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.*;
 
 import static com.bill.exceptionhandler.ErrorEnum.ERROR_STUDENT_PROFILE_NOT_FOUND;
 import static com.bill.exceptionhandler.ErrorEnum.ERROR_USER_NOT_STUDENT;
+import static com.bill.service.AppUtils.runNowAndAfterCommit;
 
 @Slf4j
 @Service
@@ -28,6 +31,7 @@ public class StudentProfileService {
     ModelMapper modelMapper;
     UserService userService;
     StudentProfileRepository studentProfileRepository;
+    Cache<Long, StudentProfileResponse> studentProfileCache;
 
     public void validateStudent(Long studentId) {
         var user = userService.getUser(studentId, false);
@@ -40,14 +44,19 @@ public class StudentProfileService {
         }
     }
 
+    // served from studentProfileCache, returned object is shared and must not be modified
     public StudentProfileResponse getStudentProfile(Long studentId) {
+        return studentProfileCache.get(studentId, this::loadStudentProfile);
+    }
+
+    private StudentProfileResponse loadStudentProfile(Long studentId) {
         var user = userService.getUser(studentId, false);
 
         if (RoleEnum.STUDENT.equals(user.getRole())) {
             var studentProfile = studentProfileRepository.findById(user.getUserId())
                     .orElseThrow(() -> new AppException(ERROR_STUDENT_PROFILE_NOT_FOUND.getCode(), ERROR_STUDENT_PROFILE_NOT_FOUND.getMessage()));
             var response = modelMapper.map(studentProfile, StudentProfileResponse.class);
-            var userNameDto = userService.getFullName(studentId);
+            var userNameDto = userService.mapToUserNameDto(user);
             response.setStudentNameTh(userNameDto.getFullNameTh());
             response.setStudentNameEn(userNameDto.getFullNameEn());
             response.setStudentId(studentId);
@@ -57,6 +66,60 @@ public class StudentProfileService {
         }
     }
 
+    // key = studentId, same validation as getStudentProfile, cache misses cost one query for users and one for profiles
+    public Map<Long, StudentProfileResponse> getStudentProfiles(Collection<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return Map.of();
+        }
+
+        return studentProfileCache.getAll(studentIds, this::loadStudentProfiles);
+    }
+
+    private Map<Long, StudentProfileResponse> loadStudentProfiles(Set<? extends Long> studentIds) {
+        var users = userService.getUsers(List.copyOf(studentIds));
+        if (users.values().stream().anyMatch(user -> !RoleEnum.STUDENT.equals(user.getRole()))) {
+            throw new AppException(ERROR_USER_NOT_STUDENT.getCode(), ERROR_USER_NOT_STUDENT.getMessage());
+        }
+
+        var studentProfiles = studentProfileRepository.findAllById(users.keySet());
+        if (studentProfiles.size() != users.size()) {
+            throw new AppException(ERROR_STUDENT_PROFILE_NOT_FOUND.getCode(), ERROR_STUDENT_PROFILE_NOT_FOUND.getMessage());
+        }
+
+        return mapToStudentProfileResponses(users, studentProfiles);
+    }
+
+    // key = studentId, students that would fail getStudentProfile (deleted user, not a student, no profile) are left out
+    public Map<Long, StudentProfileResponse> findStudentProfiles(Collection<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return Map.of();
+        }
+
+        return studentProfileCache.getAll(studentIds, this::loadResolvableStudentProfiles);
+    }
+
+    private Map<Long, StudentProfileResponse> loadResolvableStudentProfiles(Set<? extends Long> studentIds) {
+        var users = new HashMap<>(userService.findUsers(List.copyOf(studentIds)));
+        users.values().removeIf(user -> !RoleEnum.STUDENT.equals(user.getRole()));
+
+        var studentProfiles = studentProfileRepository.findAllById(users.keySet());
+        return mapToStudentProfileResponses(users, studentProfiles);
+    }
+
+    private Map<Long, StudentProfileResponse> mapToStudentProfileResponses(Map<Long, UserResponse> users, List<StudentProfile> studentProfiles) {
+        var responses = new HashMap<Long, StudentProfileResponse>();
+        for (var studentProfile : studentProfiles) {
+            var studentId = studentProfile.getStudentId();
+            var response = modelMapper.map(studentProfile, StudentProfileResponse.class);
+            var userNameDto = userService.mapToUserNameDto(users.get(studentId));
+            response.setStudentNameTh(userNameDto.getFullNameTh());
+            response.setStudentNameEn(userNameDto.getFullNameEn());
+            response.setStudentId(studentId);
+            responses.put(studentId, response);
+        }
+        return responses;
+    }
+
     public Optional<StudentProfile> getStudentProfile(String studentNo) {
         return studentProfileRepository.findByStudentNo(studentNo);
     }
@@ -74,6 +137,7 @@ public class StudentProfileService {
             studentProfile.setRemark(request.getRemark());
             studentProfile.setUpdatedAt(LocalDateTime.now());
             studentProfile = studentProfileRepository.save(studentProfile);
+            runNowAndAfterCommit(() -> studentProfileCache.invalidate(studentId));
 
             var response = modelMapper.map(studentProfile, StudentProfileResponse.class);
             response.setStudentId(studentId);
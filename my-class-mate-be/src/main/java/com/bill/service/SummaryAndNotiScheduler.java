@@ -6,7 +6,6 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 
@@ -18,7 +17,6 @@ public class SummaryAndNotiScheduler {
     SummaryAndNotiService summaryAndNotiService;
 
     @Scheduled(cron = "${app.scheduler.cron}")
-    @Transactional
     public void runScheduler() {
         var now = LocalDateTime.now();
         log.info("Running scheduler at {}", now);
@@ -1,25 +1,24 @@
 package com.bill.service;
 
 import com.bill.constant.AttendanceStatusEnum;
-import com.bill.model.CourseScheduleAttendanceProjection;
-import com.bill.model.response.CourseEnrollmentResponse;
-import com.bill.model.response.CourseResponse;
-import com.bill.repository.AttendanceRepository;
-import com.bill.repository.AttendanceSummaryRepository;
+import com.bill.model.StudentSummaryDto;
+import com.bill.model.response.SummaryResponse;
+import com.bill.model.response.TodayCourseResponse;
+import com.bill.repository.AttendanceJdbcRepository;
 import com.bill.repository.CourseScheduleRepository;
-import com.bill.repository.UserRepository;
-import com.bill.repository.entity.Attendance;
-import com.bill.repository.entity.AttendanceSummary;
+import com.bill.repository.SummaryJdbcRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static com.bill.constant.Constants.*;
 import static com.bill.service.AppUtils.toThaiBuddhistDate;
@@ -31,152 +30,123 @@ import static com.bill.service.AppUtils.toThaiBuddhistDate;
 public class SummaryAndNotiService {
     CourseService courseService;
     EmailService emailService;
-    AttendanceRepository attendanceRepository;
-    UserRepository userRepository;
     CourseScheduleRepository courseScheduleRepository;
-    AttendanceSummaryRepository attendanceSummaryRepository;
+    SummaryJdbcRepository summaryJdbcRepository;
+    AttendanceJdbcRepository attendanceJdbcRepository;
+    TransactionTemplate transactionTemplate;
+    MeterRegistry meterRegistry;
 
-    @Transactional
-    public void runSummary() {
+    public SummaryResponse runSummary() {
+        var startMillis = System.currentTimeMillis();
         var now = LocalDateTime.now();
         var todayCourseSchedules = courseService.getTodayCourses();
 
         log.info("SummaryAndNotiService todayCourseSchedules size = {}", todayCourseSchedules.size());
 
+        var insertedAbsentRow = 0;
+        var summarizedRow = 0;
+        var notifiedRow = 0;
+
         for (var courseSchedule : todayCourseSchedules) {
+            var courseScheduleStartMillis = System.currentTimeMillis();
             var courseScheduleId = courseSchedule.getCourseScheduleId();
             var courseId = courseSchedule.getCourseId();
-            var course = courseService.getCourse(courseId);
-
-            for (var enrollment : course.getEnrollments()) {
-                var studentId = enrollment.getStudentId();
-
-                // current attendance
-                var currentAttendances = courseScheduleRepository.findCurrentCourseScheduleAttendanceByCourseIdAndStudentId(
-                        courseId,
-                        studentId,
-                        now.toLocalDate()
-                );
-
-                // today attendance
-                var todayAttendance = currentAttendances.stream()
-                        .filter(atn -> now.toLocalDate().equals(atn.getScheduleDate()))
-                        .findFirst()
-                        .orElseThrow();
-                insertAttendanceWhenAbsent(todayAttendance, studentId, courseId, courseScheduleId, now);
-
-                int totalPresent = countAttendanceByStatus(currentAttendances, AttendanceStatusEnum.PRESENT);
-                int totalLate = countAttendanceByStatus(currentAttendances, AttendanceStatusEnum.LATE);
-                int totalAbsent = countAttendanceByStatus(currentAttendances, AttendanceStatusEnum.ABSENT);
-
-                // upsert attendance summary
-                var attendanceSummary = upsertAttendanceSummary(studentId, courseId, totalPresent, totalLate, totalAbsent, now);
-
-                // email noti
-                sendNotiEmail(courseScheduleId, enrollment, studentId, course, now, todayAttendance, attendanceSummary);
+
+            // each course schedule commit in its own transaction, emails are queued to outbox in the same transaction
+            var chunk = Timer.builder("summary.course")
+                    .register(meterRegistry)
+                    .record(() -> transactionTemplate.execute(status -> summarizeCourseSchedule(courseSchedule, now)));
+            if (chunk == null) {
+                continue;
             }
+            insertedAbsentRow += chunk.insertedAbsentRow();
+            summarizedRow += chunk.summarizedRow();
+            notifiedRow += chunk.notifiedRow();
+
+            log.info("runSummary courseId = {}, courseScheduleId = {}, insertedAbsentRow = {}, summarizedRow = {}, elapsed = {} ms",
+                    courseId, courseScheduleId, chunk.insertedAbsentRow(), chunk.summarizedRow(), System.currentTimeMillis() - courseScheduleStartMillis);
         }
+
+        var response = SummaryResponse.builder()
+                .totalSchedules(todayCourseSchedules.size())
+                .insertedAbsentRow(insertedAbsentRow)
+                .summarizedRow(summarizedRow)
+                .notifiedRow(notifiedRow)
+                .elapsedMillis(System.currentTimeMillis() - startMillis)
+                .build();
+        Timer.builder("summary.run")
+                .register(meterRegistry)
+                .record(response.getElapsedMillis(), TimeUnit.MILLISECONDS);
+        log.info("runSummary finished response = {}", response);
+        return response;
     }
 
-    private void insertAttendanceWhenAbsent(CourseScheduleAttendanceProjection todayAttendance, Long studentId, Long courseId, Long courseScheduleId, LocalDateTime now) {
-        if (AttendanceStatusEnum.ABSENT.equals(todayAttendance.getStatus())) {
-            var attendance = attendanceRepository.findFirstByStudentIdAndCourseScheduleIdOrderByIdDesc(studentId, courseScheduleId);
-            if (attendance == null) {
-                // insert first attendance for absent
-                attendanceRepository.save(Attendance.builder()
-                        .studentId(studentId)
-                        .courseId(courseId)
-                        .courseScheduleId(courseScheduleId)
-                        .status(AttendanceStatusEnum.ABSENT)
-                        .createdAt(now)
-                        .build());
+    private SummaryChunk summarizeCourseSchedule(TodayCourseResponse courseSchedule, LocalDateTime now) {
+        var courseScheduleId = courseSchedule.getCourseScheduleId();
+        var courseId = courseSchedule.getCourseId();
+
+        // insert first attendance for absent
+        var insertedAbsentRow = attendanceJdbcRepository.insertAbsentAttendances(courseId, courseScheduleId, now);
+
+        // upsert attendance summary
+        var summarizedRow = summaryJdbcRepository.upsertAttendanceSummaries(courseId, now.toLocalDate(), now);
+
+        // email noti
+        var notifiedRow = 0;
+        var totalCourseSchedule = courseScheduleRepository.countByCourseId(courseId);
+        for (var studentSummary : summaryJdbcRepository.findStudentSummaries(courseId, courseScheduleId)) {
+            if (queueNotiEmail(courseSchedule, studentSummary, totalCourseSchedule, now)) {
+                notifiedRow++;
             }
         }
-    }
 
-    private int countAttendanceByStatus(List<CourseScheduleAttendanceProjection> attendances, AttendanceStatusEnum status) {
-        log.info("attendances = {}, status = {}", attendances, status);
-        return (int) attendances.stream()
-                .filter(atd -> status.equals(atd.getStatus()))
-                .count();
+        return new SummaryChunk(insertedAbsentRow, summarizedRow, notifiedRow);
     }
 
-    private AttendanceSummary upsertAttendanceSummary(Long studentId, Long courseId, int totalPresent, int totalLate, int totalAbsent, LocalDateTime now) {
-        var attendanceSummary = attendanceSummaryRepository.findByStudentIdAndCourseId(studentId, courseId);
-        if (attendanceSummary == null) {
-            // case 1: insert (first time)
-            var newSummary = AttendanceSummary.builder()
-                    .studentId(studentId)
-                    .courseId(courseId)
-                    .totalPresent(totalPresent)
-                    .totalLate(totalLate)
-                    .totalAbsent(totalAbsent)
-                    .createdAt(now)
-                    .updatedAt(now)
-                    .build();
-
-            attendanceSummary = attendanceSummaryRepository.save(newSummary);
-            log.info("Inserted summary for studentId={}, courseId={}", studentId, courseId);
-        } else {
-            // case 2: update
-            attendanceSummary.setTotalPresent(totalPresent);
-            attendanceSummary.setTotalLate(totalLate);
-            attendanceSummary.setTotalAbsent(totalAbsent);
-            attendanceSummary.setUpdatedAt(now);
-
-            attendanceSummary = attendanceSummaryRepository.save(attendanceSummary);
-            log.info("Updated summary for attendanceSummaryId={} studentId={}, courseId={}", attendanceSummary.getId(), studentId, courseId);
+    private boolean queueNotiEmail(TodayCourseResponse courseSchedule, StudentSummaryDto studentSummary, long totalCourseSchedule, LocalDateTime now) {
+        var studentEmail = studentSummary.getEmail();
+        if (StringUtils.isBlank(studentEmail)) {
+            return false;
         }
-        return attendanceSummary;
-    }
 
-    private void sendNotiEmail(Long courseScheduleId, CourseEnrollmentResponse enrollment, Long studentId, CourseResponse course, LocalDateTime now, CourseScheduleAttendanceProjection todayAttendance, AttendanceSummary attendanceSummary) {
-        var studentEmail = userRepository.findById(studentId).orElseThrow().getEmail();
-        if (StringUtils.isNotBlank(studentEmail)) {
-            var buddhistDate = toThaiBuddhistDate(now.toLocalDate());
-            var subject = String.format(EMAIL_SUBJECT_TEMPLATE, course.getCourseCode(), buddhistDate);
-
-            // set today status color
-
-            var todayStatusText = todayAttendance.getStatus().getDesc();
-            var todayStatusColor = getStatusColor(todayAttendance);
-
-            // set today participation
-            var todayParticipation = courseScheduleRepository.findTotalParticipationsByStudentIdAndCourseScheduleId(studentId, courseScheduleId);
-
-            // set total participation
-            var totalParticipation = courseScheduleRepository.findTotalParticipationsAndScoreByStudentIdAndCourseId(studentId, course.getCourseId());
-
-            // set absent percentage
-            var totalCourseSchedule = course.getSchedules().size();
-            var absentPercent = (attendanceSummary.getTotalAbsent() * 100.0 / totalCourseSchedule);
-            var absentNote = String.format(ABSENT_NOTE_TEMPLATE, absentPercent);
-
-            var body = String.format(EMAIL_BODY_TEMPLATE,
-                    enrollment.getStudentNameTh(),
-                    course.getCourseCode(),
-                    buddhistDate,
-                    course.getCourseCode().concat("-").concat(course.getCourseName()),
-                    todayStatusColor,
-                    todayStatusText,
-                    todayParticipation.getTotalParticipations(), // จำนวนครั้งมีส่วนร่วม
-                    todayParticipation.getTotalScore(), // คะแนนที่ได้รับ
-                    totalCourseSchedule,
-                    attendanceSummary.getTotalPresent(),
-                    attendanceSummary.getTotalLate(),
-                    attendanceSummary.getTotalAbsent(),
-                    absentNote,
-                    totalParticipation.getTotalParticipations(),
-                    totalParticipation.getTotalScore()
-            );
-
-            emailService.sendEmail(studentEmail, subject, body);
-        }
+        var courseCode = courseSchedule.getCourseCode();
+        var buddhistDate = toThaiBuddhistDate(now.toLocalDate());
+        var subject = String.format(EMAIL_SUBJECT_TEMPLATE, courseCode, buddhistDate);
+
+        // set today status color
+        var todayStatus = studentSummary.getTodayStatus();
+        var todayStatusText = todayStatus.getDesc();
+        var todayStatusColor = getStatusColor(todayStatus);
+
+        // set absent percentage
+        var absentPercent = (studentSummary.getTotalAbsent() * 100.0 / totalCourseSchedule);
+        var absentNote = String.format(ABSENT_NOTE_TEMPLATE, absentPercent);
+
+        var body = String.format(EMAIL_BODY_TEMPLATE,
+                studentSummary.getStudentNameTh(),
+                courseCode,
+                buddhistDate,
+                courseCode.concat("-").concat(courseSchedule.getCourseName()),
+                todayStatusColor,
+                todayStatusText,
+                studentSummary.getTodayParticipations(), // จำนวนครั้งมีส่วนร่วม
+                studentSummary.getTodayScore(), // คะแนนที่ได้รับ
+                totalCourseSchedule,
+                studentSummary.getTotalPresent(),
+                studentSummary.getTotalLate(),
+                studentSummary.getTotalAbsent(),
+                absentNote,
+                studentSummary.getTotalParticipations(),
+                studentSummary.getTotalScore()
+        );
+
+        emailService.queueEmail(studentEmail, subject, body);
+        return true;
     }
 
-    private String getStatusColor(CourseScheduleAttendanceProjection todayAttendance) {
+    private String getStatusColor(AttendanceStatusEnum status) {
         String statusColor = "";
-        switch (todayAttendance.getStatus()) {
+        switch (status) {
             case PRESENT -> statusColor = "green";
             case LATE -> statusColor = "orange";
             case ABSENT -> statusColor = "red";
@@ -184,4 +154,7 @@ public class SummaryAndNotiService {
         return statusColor;
     }
 
+    private record SummaryChunk(int insertedAbsentRow, int summarizedRow, int notifiedRow) {
+    }
+
 }
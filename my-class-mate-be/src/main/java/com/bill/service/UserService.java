@@ -8,6 +8,7 @@ import com.bill.model.request.CreateUserRequest;
 import com.bill.model.request.LoginRequest;
 import com.bill.model.request.UpdateUserRequest;
 import com.bill.model.response.ImportExcelResponse;
+import com.bill.model.response.StudentProfileResponse;
 import com.bill.model.response.UserResponse;
 import com.bill.repository.AttendanceSummaryRepository;
 import com.bill.repository.IdentityRepository;
@@ -15,6 +16,7 @@ import com.bill.repository.StudentProfileRepository;
 import com.bill.repository.UserRepository;
 import com.bill.repository.entity.StudentProfile;
 import com.bill.repository.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
@@ -36,12 +38,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.bill.constant.Constants.PASSWORD_VALUE;
 import static com.bill.exceptionhandler.ErrorEnum.*;
 import static com.bill.service.AppUtils.getCellValue;
+import static com.bill.service.AppUtils.runNowAndAfterCommit;
 
 @Slf4j
 @Service
@@ -53,6 +62,9 @@ public class UserService {
     ModelMapper modelMapper;
     UserRepository userRepository;
     IdentityRepository identityRepository;
+    Cache<Long, UserResponse> userCache;
+    Cache<Long, StudentProfileResponse> studentProfileCache;
+    ExcelMetrics excelMetrics;
 
     @SneakyThrows
     public UserResponse login(LoginRequest request) {
@@ -70,11 +82,55 @@ public class UserService {
         }
     }
 
+    // basic info is served from userCache, returned object is shared and must not be modified
     public UserResponse getUser(Long userId, boolean needAllInfo) {
+        if (!needAllInfo) {
+            return userCache.get(userId, this::loadUser);
+        }
+
+        var user = userRepository.findByIdAndIsDeletedFalse(userId)
+                .orElseThrow(() -> new AppException(ERROR_USER_NOT_FOUND.getCode(), ERROR_USER_NOT_FOUND.getMessage()));
+
+        return mapToUserResponse(user, true);
+    }
+
+    private UserResponse loadUser(Long userId) {
         var user = userRepository.findByIdAndIsDeletedFalse(userId)
                 .orElseThrow(() -> new AppException(ERROR_USER_NOT_FOUND.getCode(), ERROR_USER_NOT_FOUND.getMessage()));
 
-        return mapToUserResponse(user, needAllInfo);
+        return mapToUserResponse(user, false);
+    }
+
+    // key = userId, throw when any user not found (same as getUser)
+    public Map<Long, UserResponse> getUsers(Collection<Long> userIds) {
+        var users = findUsers(userIds);
+        if (users.size() != new HashSet<>(userIds).size()) {
+            throw new AppException(ERROR_USER_NOT_FOUND.getCode(), ERROR_USER_NOT_FOUND.getMessage());
+        }
+        return users;
+    }
+
+    // key = userId, deleted and missing users are left out
+    public Map<Long, UserResponse> findUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+
+        // only cache misses are queried, in one statement
+        return userCache.getAll(new HashSet<>(userIds), this::loadUsers);
+    }
+
+    private Map<Long, UserResponse> loadUsers(Set<? extends Long> userIds) {
+        return userRepository.findByIdInAndIsDeletedFalse(List.copyOf(userIds)).stream()
+                .map(user -> mapToUserResponse(user, false))
+                .collect(Collectors.toMap(UserResponse::getUserId, Function.identity()));
+    }
+
+    public void evictUser(Long userId) {
+        runNowAndAfterCommit(() -> {
+            userCache.invalidate(userId);
+            studentProfileCache.invalidate(userId);
+        });
     }
 
     public List<UserResponse> getUsers(RoleEnum role) {
@@ -152,6 +208,7 @@ public class UserService {
         user.setEmail(request.getEmail());
         user.setUpdatedAt(now);
         user = userRepository.save(user);
+        evictUser(userId);
 
         if (!RoleEnum.STUDENT.equals(request.getRole())) {
             studentProfileRepository.deleteById(userId);
@@ -163,6 +220,7 @@ public class UserService {
     }
 
     public byte[] exportUsers(RoleEnum role, Boolean isTemplate) {
+        var startNanos = System.nanoTime();
         var users = userRepository.findAll();
         users.sort(Comparator.comparing(User::getId));
 
@@ -280,6 +338,7 @@ public class UserService {
             }
 
             workbook.write(out);
+            excelMetrics.record("export", "users", startNanos, Boolean.TRUE.equals(isTemplate) ? 0 : users.size());
             return out.toByteArray();
 
         } catch (Exception e) {
@@ -290,6 +349,7 @@ public class UserService {
 
     @Transactional
     public ImportExcelResponse importUsers(MultipartFile file) {
+        var startNanos = System.nanoTime();
         var updatedRow = 0;
         var createdRow = 0;
 
@@ -346,6 +406,7 @@ public class UserService {
             throw new AppException(ERROR_IMPORT_EXCEL.getCode(), ERROR_IMPORT_EXCEL.getMessage());
         }
 
+        excelMetrics.record("import", "users", startNanos, updatedRow + createdRow);
         return ImportExcelResponse.builder().updatedRow(updatedRow).createdRow(createdRow).build();
     }
 
@@ -365,6 +426,7 @@ public class UserService {
         user.setRole(role);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        evictUser(userId);
 
         if (role == RoleEnum.STUDENT) {
             if (studentNo.isBlank()) {
@@ -428,6 +490,7 @@ public class UserService {
         user.setIsDeleted(true);
         user.setUpdatedAt(LocalDateTime.now());
         user = userRepository.save(user);
+        evictUser(userId);
 
         identityRepository.deleteByUserId(userId);
 
@@ -436,6 +499,16 @@ public class UserService {
 
     public UserNameDto getFullName(Long userId) {
         var user = getUser(userId, false);
+        return mapToUserNameDto(user);
+    }
+
+    // key = userId
+    public Map<Long, UserNameDto> getFullNames(Collection<Long> userIds) {
+        return getUsers(userIds).values().stream()
+                .collect(Collectors.toMap(UserResponse::getUserId, this::mapToUserNameDto));
+    }
+
+    public UserNameDto mapToUserNameDto(UserResponse user) {
         var fullNameTh = user.getNameTh().concat(" ").concat(user.getSurnameTh());
         var fullNameEn = user.getNameEn().concat(" ").concat(user.getSurnameEn());
         return UserNameDto.builder().fullNameTh(fullNameTh).fullNameEn(fullNameEn).build();
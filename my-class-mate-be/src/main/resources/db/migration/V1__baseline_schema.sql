@@ -0,0 +1,170 @@
+-- schema of the Spring Boot app as first released. A database created before flyway (from an earlier
+-- my-class-mate-ddl.sql) or holding only the fast-api identities table is baselined at V0, so this script and V2
+-- are written to run over whatever part of the schema already exists
+
+-- users
+CREATE TABLE IF NOT EXISTS myclassmate."users" (
+  "id" BIGINT GENERATED BY DEFAULT AS IDENTITY UNIQUE NOT NULL,
+  "username" VARCHAR(50) UNIQUE NOT NULL,
+  "password" VARCHAR(255) NOT NULL,
+  "name_th" VARCHAR(100) NOT NULL,
+  "surname_th" VARCHAR(100) NOT NULL,
+  "name_en" VARCHAR(100) NOT NULL,
+  "surname_en" VARCHAR(100) NOT NULL,
+  "email" VARCHAR(100) UNIQUE NULL,
+  "role" VARCHAR(10) NOT NULL,
+  "is_deleted" BOOLEAN NOT NULL,
+  "created_at" TIMESTAMP NOT NULL,
+  "updated_at" TIMESTAMP NOT NULL,
+  PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "users_index_0" ON myclassmate."users" ("username");
+
+CREATE INDEX IF NOT EXISTS "users_index_1" ON myclassmate."users" ("email");
+
+CREATE INDEX IF NOT EXISTS "users_index_2" ON myclassmate."users" ("role");
+
+-- enrollments
+CREATE TABLE IF NOT EXISTS myclassmate."enrollments" (
+  "id" BIGINT GENERATED BY DEFAULT AS IDENTITY UNIQUE NOT NULL,
+  "student_id" BIGINT NOT NULL,
+  "course_id" BIGINT NOT NULL,
+  "created_at" TIMESTAMP NOT NULL,
+  PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "enrollments_index_0" ON myclassmate."enrollments" ("student_id");
+
+CREATE INDEX IF NOT EXISTS "enrollments_index_1" ON myclassmate."enrollments" ("course_id");
+
+-- courses
+CREATE TABLE IF NOT EXISTS myclassmate."courses" (
+  "id" BIGINT GENERATED BY DEFAULT AS IDENTITY UNIQUE NOT NULL,
+  "course_code" VARCHAR(20) UNIQUE NOT NULL,
+  "course_name" VARCHAR(255) UNIQUE NOT NULL,
+  "academic_year" INTEGER NOT NULL,
+  "semester" INTEGER NOT NULL,
+  "room" VARCHAR(20) NOT NULL,
+  "start_time" TIME NOT NULL,
+  "end_time" TIME NOT NULL,
+  "day_of_week" VARCHAR(10) NOT NULL,
+  "start_date" DATE NOT NULL,
+  "end_date" DATE NOT NULL,
+  "created_by" BIGINT NOT NULL,
+  "created_at" TIMESTAMP NOT NULL,
+  "updated_at" TIMESTAMP NOT NULL,
+  PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "courses_index_0" ON myclassmate."courses" ("course_code");
+
+CREATE INDEX IF NOT EXISTS "courses_index_1" ON myclassmate."courses" ("course_name");
+
+CREATE INDEX IF NOT EXISTS "courses_index_2" ON myclassmate."courses" ("academic_year");
+
+-- course_lecturers
+CREATE TABLE IF NOT EXISTS myclassmate."course_lecturers" (
+  "id" BIGINT GENERATED BY DEFAULT AS IDENTITY UNIQUE NOT NULL,
+  "course_id" BIGINT NOT NULL,
+  "lecturer_id" BIGINT NOT NULL,
+  PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "course_lecturers_index_0" ON myclassmate."course_lecturers" ("course_id");
+
+CREATE INDEX IF NOT EXISTS "course_lecturers_index_1" ON myclassmate."course_lecturers" ("lecturer_id");
+
+CREATE TABLE IF NOT EXISTS myclassmate."student_profiles" (
+  "student_id" BIGINT UNIQUE NOT NULL,
+  "student_no" VARCHAR(50) UNIQUE NOT NULL,
+  "address" VARCHAR(255) NULL,
+  "phone_number" VARCHAR(10) NULL,
+  "remark" VARCHAR(255) NULL,
+  "created_at" TIMESTAMP NOT NULL,
+  "updated_at" TIMESTAMP NOT NULL,
+  PRIMARY KEY ("student_id")
+);
+
+-- course_schedules
+CREATE TABLE IF NOT EXISTS myclassmate."course_schedules" (
+  "id" BIGINT GENERATED BY DEFAULT AS IDENTITY UNIQUE NOT NULL,
+  "course_id" BIGINT NOT NULL,
+  "schedule_date" DATE NOT NULL,
+  "start_time" TIME NOT NULL,
+  "end_time" TIME NOT NULL,
+  "room" VARCHAR(20) NOT NULL,
+  "remark" VARCHAR(255) NULL,
+  "created_at" TIMESTAMP NOT NULL,
+  "updated_at" TIMESTAMP NOT NULL,
+  PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "course_schedules_index_0" ON myclassmate."course_schedules" ("course_id");
+
+-- attendances
+CREATE TABLE IF NOT EXISTS myclassmate."attendances" (
+  "id" BIGINT GENERATED BY DEFAULT AS IDENTITY UNIQUE NOT NULL,
+  "student_id" BIGINT NOT NULL,
+  "course_id" BIGINT NOT NULL,
+  "course_schedule_id" BIGINT NOT NULL,
+  "created_at" TIMESTAMP NOT NULL,
+  "status" VARCHAR(10) NOT NULL,
+  "remark" VARCHAR(255) NULL,
+  PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "attendances_index_0" ON myclassmate."attendances" ("student_id");
+
+CREATE INDEX IF NOT EXISTS "attendances_index_1" ON myclassmate."attendances" ("course_id");
+
+CREATE INDEX IF NOT EXISTS "attendances_index_2" ON myclassmate."attendances" ("course_schedule_id");
+
+-- participations
+CREATE TABLE IF NOT EXISTS myclassmate."participations" (
+  "id" BIGINT GENERATED BY DEFAULT AS IDENTITY UNIQUE NOT NULL,
+  "course_schedule_id" BIGINT NOT NULL,
+  "round" INTEGER NOT NULL,
+  "topic" VARCHAR(255) NULL,
+  "status" VARCHAR(10) NOT NULL,
+  "created_by" BIGINT NOT NULL,
+  "created_at" TIMESTAMP NOT NULL,
+  "closed_at" TIMESTAMP NULL,
+  PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "participations_index_0" ON myclassmate."participations" ("course_schedule_id");
+
+CREATE INDEX IF NOT EXISTS "participations_index_1" ON myclassmate."participations" ("status");
+
+-- participation_requests
+CREATE TABLE IF NOT EXISTS myclassmate."participation_requests" (
+  "id" BIGINT GENERATED BY DEFAULT AS IDENTITY UNIQUE NOT NULL,
+  "participation_id" BIGINT NOT NULL,
+  "student_id" BIGINT NOT NULL,
+  "created_at" TIMESTAMP NOT NULL,
+  "is_scored" BOOLEAN NOT NULL,
+  "score" INTEGER NOT NULL,
+  PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "participation_requests_index_0" ON myclassmate."participation_requests" ("participation_id");
+
+CREATE INDEX IF NOT EXISTS "participation_requests_index_1" ON myclassmate."participation_requests" ("student_id");
+
+-- attendance_summaries
+CREATE TABLE IF NOT EXISTS myclassmate."attendance_summaries" (
+  "id" BIGINT GENERATED BY DEFAULT AS IDENTITY UNIQUE NOT NULL,
+  "student_id" BIGINT NOT NULL,
+  "course_id" BIGINT NOT NULL,
+  "total_present" INTEGER NOT NULL,
+  "total_late" INTEGER NOT NULL,
+  "total_absent" INTEGER NOT NULL,
+  "created_at" TIMESTAMP NOT NULL,
+  "updated_at" TIMESTAMP NOT NULL,
+  PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "attendance_summaries_index_0" ON myclassmate."attendance_summaries" ("student_id");
+
+CREATE INDEX IF NOT EXISTS "attendance_summaries_index_1" ON myclassmate."attendance_summaries" ("course_id");
@@ -0,0 +1,89 @@
+-- everything my-class-mate-ddl.sql and my-class-mate-migration.sql gained after the first release, written so it
+-- also runs on a database that already has some of it (created from a later ddl file and baselined at V0)
+
+-- every row deleted or renumbered below is first copied as it was into a *_v2_backup table of the same columns,
+-- check them after the first deploy and drop them once nothing has to be restored
+
+-- one attendance per student per schedule, duplicates removed first (keep latest id)
+CREATE TABLE IF NOT EXISTS myclassmate."attendances_v2_backup" AS TABLE myclassmate."attendances" WITH NO DATA;
+
+INSERT INTO myclassmate."attendances_v2_backup"
+SELECT a.* FROM myclassmate."attendances" a
+WHERE EXISTS (SELECT 1 FROM myclassmate."attendances" b
+              WHERE a.student_id = b.student_id AND a.course_schedule_id = b.course_schedule_id AND a.id < b.id);
+
+DELETE FROM myclassmate."attendances" a USING myclassmate."attendances" b
+WHERE a.student_id = b.student_id AND a.course_schedule_id = b.course_schedule_id AND a.id < b.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS "attendances_index_3" ON myclassmate."attendances" ("student_id", "course_schedule_id");
+
+-- one round number per schedule, duplicated rounds renumbered first (backup keeps the old round)
+CREATE TABLE IF NOT EXISTS myclassmate."participations_v2_backup" AS TABLE myclassmate."participations" WITH NO DATA;
+
+INSERT INTO myclassmate."participations_v2_backup"
+SELECT p.* FROM myclassmate."participations" p
+INNER JOIN (SELECT id, row_number() OVER (PARTITION BY course_schedule_id ORDER BY round, id) AS rn FROM myclassmate."participations") r
+ON p.id = r.id
+WHERE p.round <> r.rn;
+
+UPDATE myclassmate."participations" p SET round = r.rn
+FROM (SELECT id, row_number() OVER (PARTITION BY course_schedule_id ORDER BY round, id) AS rn FROM myclassmate."participations") r
+WHERE p.id = r.id AND p.round <> r.rn;
+
+CREATE UNIQUE INDEX IF NOT EXISTS "participations_index_2" ON myclassmate."participations" ("course_schedule_id", "round");
+
+-- one request per student per round, duplicates removed first (keep first id)
+CREATE TABLE IF NOT EXISTS myclassmate."participation_requests_v2_backup" AS TABLE myclassmate."participation_requests" WITH NO DATA;
+
+INSERT INTO myclassmate."participation_requests_v2_backup"
+SELECT a.* FROM myclassmate."participation_requests" a
+WHERE EXISTS (SELECT 1 FROM myclassmate."participation_requests" b
+              WHERE a.participation_id = b.participation_id AND a.student_id = b.student_id AND a.id > b.id);
+
+DELETE FROM myclassmate."participation_requests" a USING myclassmate."participation_requests" b
+WHERE a.participation_id = b.participation_id AND a.student_id = b.student_id AND a.id > b.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS "participation_requests_index_2" ON myclassmate."participation_requests" ("participation_id", "student_id");
+
+-- one summary per student per course (target of the nightly upsert), duplicates removed first (keep latest id)
+CREATE TABLE IF NOT EXISTS myclassmate."attendance_summaries_v2_backup" AS TABLE myclassmate."attendance_summaries" WITH NO DATA;
+
+INSERT INTO myclassmate."attendance_summaries_v2_backup"
+SELECT a.* FROM myclassmate."attendance_summaries" a
+WHERE EXISTS (SELECT 1 FROM myclassmate."attendance_summaries" b
+              WHERE a.student_id = b.student_id AND a.course_id = b.course_id AND a.id < b.id);
+
+DELETE FROM myclassmate."attendance_summaries" a USING myclassmate."attendance_summaries" b
+WHERE a.student_id = b.student_id AND a.course_id = b.course_id AND a.id < b.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS "attendance_summaries_index_2" ON myclassmate."attendance_summaries" ("student_id", "course_id");
+
+-- email_outboxes
+CREATE TABLE IF NOT EXISTS myclassmate."email_outboxes" (
+  "id" BIGINT GENERATED BY DEFAULT AS IDENTITY UNIQUE NOT NULL,
+  "recipient" VARCHAR(100) NOT NULL,
+  "subject" VARCHAR(255) NOT NULL,
+  "body" TEXT NOT NULL,
+  "status" VARCHAR(10) NOT NULL,
+  "attempt_count" INTEGER NOT NULL,
+  "next_attempt_at" TIMESTAMP NOT NULL,
+  "last_error" VARCHAR(500) NULL,
+  "created_at" TIMESTAMP NOT NULL,
+  "sent_at" TIMESTAMP NULL,
+  PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "email_outboxes_index_0" ON myclassmate."email_outboxes" ("status", "next_attempt_at");
+
+-- pooled id generation: hibernate takes 50 ids per sequence call so inserts can be batched,
+-- the increment of every identity sequence must match allocationSize of the entity
+ALTER TABLE myclassmate."users" ALTER COLUMN "id" SET INCREMENT BY 50;
+ALTER TABLE myclassmate."enrollments" ALTER COLUMN "id" SET INCREMENT BY 50;
+ALTER TABLE myclassmate."courses" ALTER COLUMN "id" SET INCREMENT BY 50;
+ALTER TABLE myclassmate."course_lecturers" ALTER COLUMN "id" SET INCREMENT BY 50;
+ALTER TABLE myclassmate."course_schedules" ALTER COLUMN "id" SET INCREMENT BY 50;
+ALTER TABLE myclassmate."attendances" ALTER COLUMN "id" SET INCREMENT BY 50;
+ALTER TABLE myclassmate."participations" ALTER COLUMN "id" SET INCREMENT BY 50;
+ALTER TABLE myclassmate."participation_requests" ALTER COLUMN "id" SET INCREMENT BY 50;
+ALTER TABLE myclassmate."attendance_summaries" ALTER COLUMN "id" SET INCREMENT BY 50;
+ALTER TABLE myclassmate."email_outboxes" ALTER COLUMN "id" SET INCREMENT BY 50;
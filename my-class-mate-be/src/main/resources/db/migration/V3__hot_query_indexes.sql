@@ -0,0 +1,36 @@
+-- indexes matched to the hot read paths (CourseScheduleRepository native queries, nightly summary, roster and
+-- outbox claim), checked by QueryPlanRegressionTest. Single column indexes that are the leading column of a
+-- composite are dropped, every extra index is one more write on the check-in and participation inserts
+
+-- schedules of one course up to a date (per student attendance, attendance report, summary upsert, totals per course)
+CREATE INDEX "course_schedules_index_1" ON myclassmate."course_schedules" ("course_id", "schedule_date");
+
+DROP INDEX IF EXISTS myclassmate."course_schedules_index_0";
+
+-- schedules of one day in start order (roster preload, today's courses, nightly summary)
+CREATE INDEX "course_schedules_index_2" ON myclassmate."course_schedules" ("schedule_date", "start_time");
+
+-- students of one course in student order, the report and summary joins read it without touching the table
+CREATE INDEX "enrollments_index_2" ON myclassmate."enrollments" ("course_id", "student_id");
+
+DROP INDEX IF EXISTS myclassmate."enrollments_index_1";
+
+-- student_id lookups are served by attendances_index_3 (student_id, course_schedule_id)
+DROP INDEX IF EXISTS myclassmate."attendances_index_0";
+
+-- course_schedule_id lookups are served by participations_index_2 (course_schedule_id, round),
+-- status is never filtered on, open rounds are held by ParticipationRoundRegistry
+DROP INDEX IF EXISTS myclassmate."participations_index_0";
+
+DROP INDEX IF EXISTS myclassmate."participations_index_1";
+
+-- participation_id lookups are served by participation_requests_index_2 (participation_id, student_id)
+DROP INDEX IF EXISTS myclassmate."participation_requests_index_0";
+
+-- student_id lookups are served by attendance_summaries_index_2 (student_id, course_id)
+DROP INDEX IF EXISTS myclassmate."attendance_summaries_index_0";
+
+-- the dispatcher only claims PENDING/SENDING rows, SENT and FAILED rows pile up forever and stay out of the index
+CREATE INDEX "email_outboxes_index_1" ON myclassmate."email_outboxes" ("next_attempt_at") WHERE status IN ('PENDING', 'SENDING');
+
+DROP INDEX IF EXISTS myclassmate."email_outboxes_index_0";
@@ -0,0 +1,27 @@
+-- hibernate validates the id sequence of every entity (allocationSize 50) against information_schema.sequences,
+-- which leaves out the sequences behind identity columns, so validation failed with "missing sequence".
+-- Each identity becomes a plain sequence of the same name, owned by the column and used as its default,
+-- continuing after the highest id handed out so far
+DO $$
+DECLARE
+  t TEXT;
+  last_id BIGINT;
+BEGIN
+  FOREACH t IN ARRAY ARRAY['users', 'enrollments', 'courses', 'course_lecturers', 'course_schedules', 'attendances',
+                           'participations', 'participation_requests', 'attendance_summaries', 'email_outboxes'] LOOP
+    -- already a plain sequence
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = 'myclassmate' AND table_name = t AND column_name = 'id' AND is_identity = 'YES') THEN
+      CONTINUE;
+    END IF;
+
+    EXECUTE format('SELECT greatest((SELECT max(id) FROM myclassmate.%I), (SELECT CASE WHEN is_called THEN last_value END FROM myclassmate.%I))',
+                   t, t || '_id_seq') INTO last_id;
+    EXECUTE format('ALTER TABLE myclassmate.%I ALTER COLUMN id DROP IDENTITY', t);
+    EXECUTE format('CREATE SEQUENCE myclassmate.%I INCREMENT BY 50 OWNED BY myclassmate.%I.id', t || '_id_seq', t);
+    IF last_id IS NOT NULL THEN
+      PERFORM setval(format('myclassmate.%I', t || '_id_seq'), last_id);
+    END IF;
+    EXECUTE format('ALTER TABLE myclassmate.%I ALTER COLUMN id SET DEFAULT nextval(%L)', t, format('myclassmate.%I', t || '_id_seq'));
+  END LOOP;
+END $$;
@@ -0,0 +1,99 @@
+package com.bill.my_class_mate_be;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.bill.interceptor.SqlInstrumentationFilter.STATEMENTS_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// GET /v1/courses loads lecturers, schedules, enrollments and names for all courses at once, 20 courses with
+// 2 lecturers, 16 schedules and 30 students each take the same statements as one course would
+@SpringBootTest(properties = {"app.scheduler.cron=-", "spring.mail.host=localhost"})
+@DirtiesContext // closed with the class, scheduled tasks stop before the database does
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+class CourseStatementCountTest {
+	private static final int COURSES = 20;
+
+	// courses, course_lecturers, course_schedules, enrollments, lecturer users, student users, student_profiles
+	private static final int MAX_STATEMENTS = 7;
+
+	private static EmbeddedPostgres postgres;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) throws Exception {
+		postgres = EmbeddedDatabase.start(registry);
+	}
+
+	@BeforeAll
+	static void seed(@Autowired JdbcTemplate jdbcTemplate) {
+		// students 1 to 600, lecturers 601 to 640
+		jdbcTemplate.execute("""
+				insert into users (id, username, password, name_th, surname_th, name_en, surname_en, email, role, is_deleted, created_at, updated_at)
+				select i, 'user' || i, 'password', 'name' || i, 'surname' || i, 'name' || i, 'surname' || i, 'user' || i || '@example.com',
+					case when i <= 600 then 'STUDENT' else 'LECTURER' end, false, now(), now()
+				from generate_series(1, 640) i
+				""");
+		jdbcTemplate.execute("""
+				insert into student_profiles (student_id, student_no, created_at, updated_at)
+				select i, lpad(i::text, 10, '0'), now(), now()
+				from generate_series(1, 600) i
+				""");
+		jdbcTemplate.execute("""
+				insert into courses (id, course_code, course_name, academic_year, semester, room, start_time, end_time, day_of_week, start_date, end_date, created_by, created_at, updated_at)
+				select c, 'C' || lpad(c::text, 3, '0'), 'course ' || c, 2026, 1, 'R' || c, time '09:00', time '12:00', 'MONDAY',
+					date '2026-06-01', date '2026-09-30', 600 + c, now(), now()
+				from generate_series(1, %d) c
+				""".formatted(COURSES));
+		jdbcTemplate.execute("""
+				insert into course_lecturers (id, course_id, lecturer_id)
+				select (c - 1) * 2 + k + 1, c, 600 + (c - 1) * 2 + k + 1
+				from generate_series(1, %d) c, generate_series(0, 1) k
+				""".formatted(COURSES));
+		jdbcTemplate.execute("""
+				insert into course_schedules (id, course_id, schedule_date, start_time, end_time, room, created_at, updated_at)
+				select (c - 1) * 16 + w + 1, c, date '2026-06-01' + w * 7, time '09:00', time '12:00', 'R' || c, now(), now()
+				from generate_series(1, %d) c, generate_series(0, 15) w
+				""".formatted(COURSES));
+		jdbcTemplate.execute("""
+				insert into enrollments (id, student_id, course_id, created_at)
+				select (c - 1) * 30 + s, (c - 1) * 30 + s, c, now()
+				from generate_series(1, %d) c, generate_series(1, 30) s
+				""".formatted(COURSES));
+	}
+
+	@AfterAll
+	static void tearDown() throws Exception {
+		postgres.close();
+	}
+
+	@Test
+	void getCoursesTakesAFixedNumberOfStatements() throws Exception {
+		// caches are cold on the first call, every lookup goes to the database
+		var result = SqlStatementAssertions.assertMaxStatements(MAX_STATEMENTS, () -> mockMvc.perform(get("/v1/courses").header("X-Role", "ADMIN"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(COURSES))
+				.andReturn());
+
+		// the dev profile reports the count of the request in the response header
+		assertThat(result.getResponse().getHeader(STATEMENTS_HEADER)).isNotNull();
+		assertThat(Integer.parseInt(result.getResponse().getHeader(STATEMENTS_HEADER))).isBetween(1, MAX_STATEMENTS);
+	}
+}
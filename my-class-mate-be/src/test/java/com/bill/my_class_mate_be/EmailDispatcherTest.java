@@ -0,0 +1,162 @@
+package com.bill.my_class_mate_be;
+
+import com.bill.constant.EmailStatusEnum;
+import com.bill.repository.EmailOutboxJdbcRepository;
+import com.bill.repository.entity.EmailOutbox;
+import com.bill.service.EmailDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// dispatcher against a mail sender that records when each message went out and fails recipients named fail*,
+// 2 workers, batch-size 20 and 5 messages per second as in application.yml, backoff 1s so the times are readable
+class EmailDispatcherTest {
+	private static final int RATE_PER_SECOND = 5;
+	private static final int MAX_ATTEMPTS = 5;
+	private static final long RETRY_BACKOFF_MS = 1000;
+
+	private final List<Long> sentAt = Collections.synchronizedList(new ArrayList<>());
+	private EmailOutboxJdbcRepository emailOutboxJdbcRepository;
+	private EmailDispatcher emailDispatcher;
+
+	@BeforeEach
+	void setUp() {
+		var mailSender = new JavaMailSenderImpl() {
+			@Override
+			public void send(MimeMessage... mimeMessages) {
+				var failedMessages = new LinkedHashMap<Object, Exception>();
+				for (var message : mimeMessages) {
+					sentAt.add(System.nanoTime());
+					if (recipient(message).startsWith("fail")) {
+						failedMessages.put(message, new MessagingException("550 mailbox unavailable"));
+					}
+				}
+				if (!failedMessages.isEmpty()) {
+					throw new MailSendException(failedMessages);
+				}
+			}
+		};
+
+		emailOutboxJdbcRepository = mock(EmailOutboxJdbcRepository.class);
+		emailDispatcher = new EmailDispatcher();
+		ReflectionTestUtils.setField(emailDispatcher, "mailSender", mailSender);
+		ReflectionTestUtils.setField(emailDispatcher, "emailOutboxJdbcRepository", emailOutboxJdbcRepository);
+		ReflectionTestUtils.setField(emailDispatcher, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(emailDispatcher, "workers", 2);
+		ReflectionTestUtils.setField(emailDispatcher, "batchSize", 20);
+		ReflectionTestUtils.setField(emailDispatcher, "ratePerSecond", RATE_PER_SECOND);
+		ReflectionTestUtils.setField(emailDispatcher, "maxAttempts", MAX_ATTEMPTS);
+		ReflectionTestUtils.setField(emailDispatcher, "retryBackoffMs", RETRY_BACKOFF_MS);
+		emailDispatcher.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		emailDispatcher.shutdown();
+	}
+
+	@Test
+	void onePollSendsTheWholeOutboxAtTheRate() {
+		// claims are cut to one second of the rate, 20 messages are 4 claims, the workers claim again as soon as
+		// a batch is sent instead of waiting for the next poll
+		when(emailOutboxJdbcRepository.claimBatch(eq(RATE_PER_SECOND), any(), any()))
+				.thenReturn(emails(1, 5, 0), emails(6, 10, 0), emails(11, 15, 0), emails(16, 20, 0), List.of());
+		emailDispatcher.dispatch();
+		verify(emailOutboxJdbcRepository, timeout(10000).times(4)).markSent(any(), any());
+
+		assertThat(sentAt).hasSize(20);
+		var times = sentAt.stream().sorted().toList();
+		for (int i = RATE_PER_SECOND; i < times.size(); i++) {
+			// message i and message i - 5 are at least one second apart, a little slack for the sleep granularity
+			assertThat(times.get(i) - times.get(i - RATE_PER_SECOND))
+					.as("nanos between message %d and message %d", i - RATE_PER_SECOND, i)
+					.isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(980));
+		}
+		// and no slower than the rate, 3 seconds for the permits of messages 6 to 20, well under a 5 s poll interval
+		assertThat(times.get(times.size() - 1) - times.get(0)).isLessThan(TimeUnit.MILLISECONDS.toNanos(4000));
+	}
+
+	@Test
+	void failedMessagesBackOffExponentiallyThenFail() {
+		var batch = new ArrayList<EmailOutbox>();
+		batch.add(email(1, "ok1@example.com", 0));
+		batch.add(email(2, "fail2@example.com", 0));
+		batch.add(email(3, "fail3@example.com", 2));
+		batch.add(email(4, "fail4@example.com", MAX_ATTEMPTS - 1));
+		// SENDING lease expired once more in the claim, not sent again
+		batch.add(email(5, "ok5@example.com", MAX_ATTEMPTS));
+		when(emailOutboxJdbcRepository.claimBatch(anyInt(), any(), any())).thenReturn(batch, List.of());
+
+		var before = LocalDateTime.now();
+		emailDispatcher.dispatch();
+		verify(emailOutboxJdbcRepository, timeout(5000)).markSent(eq(List.of(1L)), any());
+		var after = LocalDateTime.now();
+
+		// attempt 1 waits the backoff, attempt 3 four times the backoff
+		var nextAttemptAt = ArgumentCaptor.forClass(LocalDateTime.class);
+		verify(emailOutboxJdbcRepository, timeout(5000)).markRetry(eq(2L), eq(1), nextAttemptAt.capture(), anyString());
+		assertThat(nextAttemptAt.getValue()).isBetween(before.plusNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_MS)),
+				after.plusNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_MS)));
+		verify(emailOutboxJdbcRepository, timeout(5000)).markRetry(eq(3L), eq(3), nextAttemptAt.capture(), anyString());
+		assertThat(nextAttemptAt.getValue()).isBetween(before.plusNanos(TimeUnit.MILLISECONDS.toNanos(4 * RETRY_BACKOFF_MS)),
+				after.plusNanos(TimeUnit.MILLISECONDS.toNanos(4 * RETRY_BACKOFF_MS)));
+
+		verify(emailOutboxJdbcRepository, timeout(5000)).markFailed(eq(4L), eq(MAX_ATTEMPTS), anyString());
+		verify(emailOutboxJdbcRepository, timeout(5000)).markFailed(5L, MAX_ATTEMPTS, "lease expired");
+		verify(emailOutboxJdbcRepository, never()).markRetry(eq(4L), anyInt(), any(), any());
+		assertThat(sentAt).hasSize(4);
+	}
+
+	private static List<EmailOutbox> emails(long fromId, long toId, int attemptCount) {
+		return LongStream.rangeClosed(fromId, toId)
+				.mapToObj(id -> email(id, "user" + id + "@example.com", attemptCount))
+				.toList();
+	}
+
+	private static EmailOutbox email(long id, String recipient, int attemptCount) {
+		return EmailOutbox.builder()
+				.id(id)
+				.recipient(recipient)
+				.subject("summary")
+				.body("<p>summary</p>")
+				.status(EmailStatusEnum.SENDING)
+				.attemptCount(attemptCount)
+				.nextAttemptAt(LocalDateTime.now())
+				.createdAt(LocalDateTime.now())
+				.build();
+	}
+
+	private static String recipient(MimeMessage message) {
+		try {
+			return message.getAllRecipients()[0].toString();
+		} catch (MessagingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.bill.my_class_mate_be;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+// postgres for a @SpringBootTest, started from @DynamicPropertySource and closed in @AfterAll. The schema already
+// holds identities (owned by fast-api, not in the migrations) so flyway baselines it at V0 and runs every migration
+public final class EmbeddedDatabase {
+
+	private EmbeddedDatabase() {
+	}
+
+	public static EmbeddedPostgres start(DynamicPropertyRegistry registry) throws Exception {
+		var postgres = EmbeddedPostgres.builder().start();
+		try (var connection = postgres.getPostgresDatabase().getConnection(); var statement = connection.createStatement()) {
+			statement.execute("CREATE SCHEMA myclassmate");
+			statement.execute("""
+					CREATE TABLE myclassmate.identities (
+					  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+					  user_id BIGINT NOT NULL,
+					  file_name VARCHAR(100) NOT NULL,
+					  embedding REAL[] NOT NULL
+					)
+					""");
+		}
+		registry.add("spring.datasource.url", () -> "jdbc:postgresql://localhost:" + postgres.getPort()
+				+ "/postgres?currentSchema=myclassmate&reWriteBatchedInserts=true");
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "postgres");
+		return postgres;
+	}
+}
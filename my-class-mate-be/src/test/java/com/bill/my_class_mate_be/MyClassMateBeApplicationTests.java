@@ -1,11 +1,30 @@
 package com.bill.my_class_mate_be;
 
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
-@SpringBootTest
+// the whole context on a database migrated by flyway, hibernate validates every entity against the migrations
+@SpringBootTest(properties = {"app.scheduler.cron=-", "spring.mail.host=localhost"})
+@DirtiesContext
 class MyClassMateBeApplicationTests {
 
+	private static EmbeddedPostgres postgres;
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) throws Exception {
+		postgres = EmbeddedDatabase.start(registry);
+	}
+
+	@AfterAll
+	static void tearDown() throws Exception {
+		postgres.close();
+	}
+
 	@Test
 	void contextLoads() {
 	}
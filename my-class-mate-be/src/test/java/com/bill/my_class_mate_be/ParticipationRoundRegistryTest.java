@@ -0,0 +1,207 @@
+package com.bill.my_class_mate_be;
+
+import com.bill.exceptionhandler.AppException;
+import com.bill.model.request.CreateParticipationRequest;
+import com.bill.model.request.EvaluateParticipationRequest;
+import com.bill.model.request.EvaluateParticipationRequest.Evaluate;
+import com.bill.model.request.RequestParticipationRequest;
+import com.bill.model.response.RequestParticipationResponse;
+import com.bill.service.ParticipationRoundRegistry;
+import com.bill.service.ParticipationService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.bill.exceptionhandler.ErrorEnum.ERROR_PARTICIPATION_NOT_FOUND;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// the admission path end to end on a postgres migrated by flyway: 450 students present on schedule 1,
+// every test opens its own round so the rounds held in memory never leak between tests
+@SpringBootTest(properties = {"app.scheduler.cron=-", "spring.mail.host=localhost"})
+@DirtiesContext // closed with the class, scheduled tasks stop before the database does
+class ParticipationRoundRegistryTest {
+	private static final long COURSE_SCHEDULE_ID = 1L;
+	private static final long LECTURER_ID = 1000L;
+	private static final int STUDENTS = 450;
+	private static final int REPEATS = 50;
+
+	private static EmbeddedPostgres postgres;
+	private static boolean seeded;
+
+	@Autowired
+	private ParticipationService participationService;
+
+	@Autowired
+	private ParticipationRoundRegistry participationRoundRegistry;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) throws Exception {
+		postgres = EmbeddedDatabase.start(registry);
+	}
+
+	@AfterAll
+	static void tearDown() throws Exception {
+		postgres.close();
+	}
+
+	@BeforeEach
+	void seed() {
+		if (seeded) {
+			return;
+		}
+		jdbcTemplate.execute("""
+				insert into users (id, username, password, name_th, surname_th, name_en, surname_en, email, role, is_deleted, created_at, updated_at)
+				select i, 'user' || i, 'password', 'name' || i, 'surname' || i, 'name' || i, 'surname' || i, 'user' || i || '@example.com',
+					case when i = %d then 'LECTURER' else 'STUDENT' end, false, now(), now()
+				from generate_series(1, %d) i
+				where i <= %d or i = %d
+				""".formatted(LECTURER_ID, LECTURER_ID, STUDENTS, LECTURER_ID));
+		jdbcTemplate.execute("""
+				insert into student_profiles (student_id, student_no, created_at, updated_at)
+				select i, lpad(i::text, 10, '0'), now(), now()
+				from generate_series(1, %d) i
+				""".formatted(STUDENTS));
+		jdbcTemplate.execute("""
+				insert into courses (id, course_code, course_name, academic_year, semester, room, start_time, end_time, day_of_week, start_date, end_date, created_by, created_at, updated_at)
+				values (1, 'CS101', 'course 1', 2026, 1, 'R1', time '00:00', time '23:59', 'MONDAY', current_date, current_date, %d, now(), now())
+				""".formatted(LECTURER_ID));
+		jdbcTemplate.execute("""
+				insert into course_schedules (id, course_id, schedule_date, start_time, end_time, room, created_at, updated_at)
+				values (%d, 1, current_date, time '00:00', time '23:59', 'R1', now(), now())
+				""".formatted(COURSE_SCHEDULE_ID));
+		jdbcTemplate.execute("""
+				insert into attendances (id, student_id, course_id, course_schedule_id, created_at, status)
+				select i, i, 1, %d, now(), 'PRESENT'
+				from generate_series(1, %d) i
+				""".formatted(COURSE_SCHEDULE_ID, STUDENTS));
+		seeded = true;
+	}
+
+	@Test
+	void concurrentRequestsWriteOneRowPerStudentInSequenceOrder() throws Exception {
+		var participationId = openRound();
+
+		// every student once and the first 50 a second time, all released together
+		var studentIds = new ArrayList<Long>();
+		for (long studentId = 1; studentId <= STUDENTS; studentId++) {
+			studentIds.add(studentId);
+		}
+		for (long studentId = 1; studentId <= REPEATS; studentId++) {
+			studentIds.add(studentId);
+		}
+		Collections.shuffle(studentIds, new Random(42));
+
+		var responses = new HashMap<Long, List<RequestParticipationResponse>>();
+		var executor = Executors.newFixedThreadPool(studentIds.size());
+		try {
+			var start = new CountDownLatch(1);
+			var futures = new ArrayList<Future<RequestParticipationResponse>>();
+			for (var studentId : studentIds) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return request(participationId, studentId);
+				}));
+			}
+			start.countDown();
+			for (int i = 0; i < studentIds.size(); i++) {
+				responses.computeIfAbsent(studentIds.get(i), key -> new ArrayList<>())
+						.add(futures.get(i).get(30, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// one row per student
+		var rows = jdbcTemplate.queryForList(
+				"select id, student_id, created_at from participation_requests where participation_id = ? order by id", participationId);
+		assertThat(rows).hasSize(STUDENTS);
+		var rowIds = new HashMap<Long, Long>();
+		rows.forEach(row -> rowIds.put(((Number) row.get("student_id")).longValue(), ((Number) row.get("id")).longValue()));
+		assertThat(rowIds).hasSize(STUDENTS);
+
+		// created_at is handed out with the sequence, ids in sequence order never see it step back
+		List<LocalDateTime> createdAts = rows.stream()
+				.map(row -> ((Timestamp) row.get("created_at")).toLocalDateTime())
+				.toList();
+		assertThat(createdAts).isSorted();
+
+		// a repeat gets the same request as the first call, which is the written row
+		assertThat(responses).hasSize(STUDENTS);
+		responses.forEach((studentId, studentResponses) -> {
+			var first = studentResponses.get(0);
+			assertThat(first.getStudentId()).isEqualTo(studentId);
+			assertThat(first.getParticipationRequestId()).isEqualTo(rowIds.get(studentId));
+			assertThat(studentResponses).allSatisfy(response -> assertThat(response).isEqualTo(first));
+		});
+		assertThat(responses.values()).filteredOn(studentResponses -> studentResponses.size() == 2).hasSize(REPEATS);
+	}
+
+	@Test
+	void repeatAfterScoringReturnsTheScoredRequest() {
+		var participationId = openRound();
+		var first = request(participationId, 1L);
+		assertThat(first.getIsScored()).isFalse();
+
+		participationService.evaluateParticipationRequest(EvaluateParticipationRequest.builder()
+				.evaluates(List.of(Evaluate.builder().participationRequestId(first.getParticipationRequestId()).score(2).build()))
+				.build());
+
+		var repeat = request(participationId, 1L);
+		assertThat(repeat.getParticipationRequestId()).isEqualTo(first.getParticipationRequestId());
+		assertThat(repeat.getIsScored()).isTrue();
+		assertThat(repeat.getScore()).isEqualTo(2);
+	}
+
+	@Test
+	void deletedRoundIsNotServedFromMemory() {
+		var participationId = openRound();
+		request(participationId, 1L);
+
+		jdbcTemplate.update("delete from participation_requests where participation_id = ?", participationId);
+		jdbcTemplate.update("delete from participations where id = ?", participationId);
+		participationRoundRegistry.evictCourseSchedules(List.of(COURSE_SCHEDULE_ID));
+
+		assertThatThrownBy(() -> request(participationId, 2L))
+				.isInstanceOf(AppException.class)
+				.extracting("code").isEqualTo(ERROR_PARTICIPATION_NOT_FOUND.getCode());
+	}
+
+	private Long openRound() {
+		return participationService.createParticipation(CreateParticipationRequest.builder()
+				.courseScheduleId(COURSE_SCHEDULE_ID)
+				.lecturerId(LECTURER_ID)
+				.topic("topic")
+				.build()).getParticipationId();
+	}
+
+	private RequestParticipationResponse request(Long participationId, Long studentId) {
+		return participationService.requestParticipation(RequestParticipationRequest.builder()
+				.participationId(participationId)
+				.studentId(studentId)
+				.courseScheduleId(COURSE_SCHEDULE_ID)
+				.build());
+	}
+}
@@ -0,0 +1,108 @@
+package com.bill.my_class_mate_be;
+
+import com.bill.constant.ParticipationStatusEnum;
+import com.bill.controller.ParticipationController;
+import com.bill.exceptionhandler.AppException;
+import com.bill.interceptor.RoleInterceptor;
+import com.bill.model.response.ParticipationResponse;
+import com.bill.model.response.RequestParticipationResponse;
+import com.bill.repository.ParticipationJdbcRepository;
+import com.bill.service.ParticipationBroadcaster;
+import com.bill.service.ParticipationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static com.bill.exceptionhandler.ErrorEnum.ERROR_MISSING_HEADER_ROLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// a dashboard reconnecting with Last-Event-ID: 2 on round 1, request 3 is already written (replayed), then request 3
+// is published again, request 4 arrives and the round is closed
+class ParticipationStreamTest {
+	private static final String STREAM = "/v1/participations/requests/1/stream";
+
+	private ParticipationBroadcaster participationBroadcaster;
+	private ParticipationJdbcRepository participationJdbcRepository;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		participationJdbcRepository = mock(ParticipationJdbcRepository.class);
+		participationBroadcaster = new ParticipationBroadcaster();
+		ReflectionTestUtils.setField(participationBroadcaster, "participationJdbcRepository", participationJdbcRepository);
+		ReflectionTestUtils.setField(participationBroadcaster, "timeoutMs", 10000L);
+		ReflectionTestUtils.setField(participationBroadcaster, "bufferSize", 16);
+		ReflectionTestUtils.setField(participationBroadcaster, "senders", 1);
+		ReflectionTestUtils.setField(participationBroadcaster, "maxSenders", 4);
+		ReflectionTestUtils.setField(participationBroadcaster, "sendTimeoutMs", 1000L);
+		participationBroadcaster.init();
+
+		var participationService = mock(ParticipationService.class);
+		when(participationService.streamParticipationRequests(anyLong(), any()))
+				.thenAnswer(invocation -> participationBroadcaster.subscribe(invocation.getArgument(0), invocation.getArgument(1)));
+
+		mockMvc = MockMvcBuilders.standaloneSetup(new ParticipationController(participationService))
+				.addInterceptors(new RoleInterceptor())
+				.build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		participationBroadcaster.shutdown();
+	}
+
+	@Test
+	void replaysFromLastEventIdThenStreamsUntilClose() throws Exception {
+		when(participationJdbcRepository.findParticipationRequests(1L, 2L)).thenReturn(List.of(participationRequest(3L)));
+
+		// the role as a query parameter, as an EventSource sends it
+		var result = mockMvc.perform(get(STREAM).param("role", "LECTURER").header("Last-Event-ID", "2"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		participationBroadcaster.publishRequest(participationRequest(3L));
+		participationBroadcaster.publishRequest(participationRequest(4L));
+		participationBroadcaster.publishClose(ParticipationResponse.builder()
+				.participationId(1L)
+				.status(ParticipationStatusEnum.CLOSE)
+				.build());
+
+		// set when the close event completes the emitter
+		result.getAsyncResult(5000);
+		var body = result.getResponse().getContentAsString();
+
+		assertThat(body).doesNotContain("id:2\n");
+		assertThat(body.split("id:3\n", -1)).hasSize(2);
+		assertThat(body.indexOf("id:3\n")).isLessThan(body.indexOf("id:4\n"));
+		assertThat(body.indexOf("id:4\n")).isLessThan(body.indexOf("event:close\n"));
+	}
+
+	@Test
+	void streamWithoutRoleIsRejected() {
+		assertThatThrownBy(() -> mockMvc.perform(get(STREAM)))
+				.hasCauseInstanceOf(AppException.class)
+				.cause()
+				.extracting("code").isEqualTo(ERROR_MISSING_HEADER_ROLE.getCode());
+	}
+
+	private static RequestParticipationResponse participationRequest(Long participationRequestId) {
+		return RequestParticipationResponse.builder()
+				.participationRequestId(participationRequestId)
+				.participationId(1L)
+				.studentId(participationRequestId)
+				.isScored(false)
+				.build();
+	}
+}
@@ -0,0 +1,209 @@
+package com.bill.my_class_mate_be;
+
+import com.bill.repository.AttendanceJdbcRepository;
+import com.bill.repository.CourseScheduleRepository;
+import com.bill.repository.EmailOutboxJdbcRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// EXPLAIN of every hot query on a postgres migrated by flyway and seeded with a semester of data
+// (2000 students, 100 courses of 80, 16 weekly schedules, 3 participation rounds each). Seq scans are
+// switched off for the session, on this small dataset the planner may still prefer them where production
+// would not, so a Seq Scan left in the plan means no index can serve that access at all.
+class QueryPlanRegressionTest {
+	private static final Pattern PARAMETER = Pattern.compile("(?<!:):(\\w+)");
+
+	// course 42 is taken by student 41 and holds schedules 657 to 672, targetDate is mid semester
+	private static final Map<String, String> PARAMETERS = Map.of(
+			"courseId", "42",
+			"studentId", "41",
+			"courseScheduleId", "662",
+			"targetDate", "date '2026-07-27'",
+			"now", "timestamp '2026-07-27 12:00:00'",
+			"leaseUntil", "timestamp '2026-07-27 12:10:00'",
+			"batchSize", "5");
+
+	private static EmbeddedPostgres postgres;
+	private static DataSource dataSource;
+
+	@BeforeAll
+	static void setUp() throws Exception {
+		postgres = EmbeddedPostgres.builder().start();
+		dataSource = postgres.getPostgresDatabase();
+		Flyway.configure()
+				.dataSource(dataSource)
+				.schemas("myclassmate")
+				.createSchemas(true)
+				.locations("classpath:db/migration")
+				.load()
+				.migrate();
+		seed();
+	}
+
+	@AfterAll
+	static void tearDown() throws Exception {
+		postgres.close();
+	}
+
+	static Stream<Arguments> hotQueries() {
+		// native queries are read from the repository so the test always explains them as written
+		var nativeQueries = Arrays.stream(CourseScheduleRepository.class.getDeclaredMethods())
+				.filter(method -> method.isAnnotationPresent(Query.class) && method.getAnnotation(Query.class).nativeQuery())
+				.sorted(Comparator.comparing(Method::getName))
+				.map(method -> Arguments.of(method.getName(), method.getAnnotation(Query.class).value()));
+
+		// jdbc queries from the constants the repositories send
+		var jdbcQueries = Stream.of(
+				Arguments.of("AttendanceJdbcRepository.findAttendance", AttendanceJdbcRepository.FIND_ATTENDANCE),
+				Arguments.of("EmailOutboxJdbcRepository.claimBatch", EmailOutboxJdbcRepository.CLAIM_BATCH));
+
+		return Stream.concat(nativeQueries, jdbcQueries);
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("hotQueries")
+	void usesIndexes(String name, String sql) throws Exception {
+		var plan = explain(sql);
+
+		var seqScans = new ArrayList<String>();
+		collectSeqScans(plan, seqScans);
+		assertThat(seqScans)
+				.as("sequential scans in the plan of %s:%n%s", name, plan.toPrettyString())
+				.isEmpty();
+	}
+
+	private static JsonNode explain(String sql) throws Exception {
+		try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+			statement.execute("SET search_path TO myclassmate");
+			statement.execute("SET enable_seqscan TO off");
+			try (var resultSet = statement.executeQuery("EXPLAIN (FORMAT JSON) " + bind(sql))) {
+				resultSet.next();
+				return new ObjectMapper().readTree(resultSet.getString(1)).get(0).get("Plan");
+			}
+		}
+	}
+
+	// named parameters replaced by literals, so the plan is the custom plan postgres makes for these values
+	private static String bind(String sql) {
+		var matcher = PARAMETER.matcher(sql.strip().replaceAll(";$", ""));
+		var bound = new StringBuilder();
+		while (matcher.find()) {
+			var value = PARAMETERS.get(matcher.group(1));
+			assertThat(value).as("value for parameter %s", matcher.group()).isNotNull();
+			matcher.appendReplacement(bound, Matcher.quoteReplacement(value));
+		}
+		matcher.appendTail(bound);
+		return bound.toString();
+	}
+
+	private static void collectSeqScans(JsonNode node, List<String> seqScans) {
+		if ("Seq Scan".equals(node.path("Node Type").asText())) {
+			seqScans.add(node.path("Relation Name").asText());
+		}
+		for (var child : node.path("Plans")) {
+			collectSeqScans(child, seqScans);
+		}
+	}
+
+	// ids are given explicitly (the id sequences step by 50), membership and statuses follow from the ids
+	private static void seed() throws Exception {
+		var statements = List.of(
+				"""
+				insert into users (id, username, password, name_th, surname_th, name_en, surname_en, email, role, is_deleted, created_at, updated_at)
+				select i, 'user' || i, 'password', 'name' || i, 'surname' || i, 'name' || i, 'surname' || i, 'user' || i || '@example.com',
+					case when i <= 2000 then 'STUDENT' else 'LECTURER' end, false, now(), now()
+				from generate_series(1, 2050) i
+				""",
+				"""
+				insert into student_profiles (student_id, student_no, created_at, updated_at)
+				select i, lpad(i::text, 10, '0'), now(), now()
+				from generate_series(1, 2000) i
+				""",
+				"""
+				insert into courses (id, course_code, course_name, academic_year, semester, room, start_time, end_time, day_of_week, start_date, end_date, created_by, created_at, updated_at)
+				select c, 'C' || c, 'course ' || c, 2026, 1, 'R' || c, time '09:00' + (c % 4) * interval '2 hours', time '11:00' + (c % 4) * interval '2 hours',
+					'MONDAY', date '2026-06-01', date '2026-09-30', 2000 + c % 50 + 1, now(), now()
+				from generate_series(1, 100) c
+				""",
+				"""
+				insert into course_lecturers (id, course_id, lecturer_id)
+				select c, c, 2000 + c % 50 + 1
+				from generate_series(1, 100) c
+				""",
+				// every student in 4 courses, every course 80 students
+				"""
+				insert into enrollments (id, student_id, course_id, created_at)
+				select (s - 1) * 4 + k + 1, s, (s + k * 25) % 100 + 1, now()
+				from generate_series(1, 2000) s, generate_series(0, 3) k
+				""",
+				"""
+				insert into course_schedules (id, course_id, schedule_date, start_time, end_time, room, created_at, updated_at)
+				select (c - 1) * 16 + w + 1, c, date '2026-06-01' + w * 7 + c % 5, time '09:00' + (c % 4) * interval '2 hours',
+					time '11:00' + (c % 4) * interval '2 hours', 'R' || c, now(), now()
+				from generate_series(1, 100) c, generate_series(0, 15) w
+				""",
+				// about 1 in 13 absent (no row), 1 in 10 late
+				"""
+				insert into attendances (id, student_id, course_id, course_schedule_id, created_at, status)
+				select row_number() over (), e.student_id, e.course_id, cs.id, now(),
+					case when (e.student_id + cs.id) % 10 = 0 then 'LATE' else 'PRESENT' end
+				from enrollments e
+				inner join course_schedules cs on cs.course_id = e.course_id
+				where (e.student_id * 7 + cs.id) % 13 <> 0
+				""",
+				"""
+				insert into participations (id, course_schedule_id, round, topic, status, created_by, created_at, closed_at)
+				select (cs.id - 1) * 3 + r, cs.id, r, 'topic ' || r, 'CLOSE', 2001, now(), now()
+				from course_schedules cs, generate_series(1, 3) r
+				""",
+				"""
+				insert into participation_requests (id, participation_id, student_id, created_at, is_scored, score)
+				select row_number() over (), p.id, e.student_id, now(), true, 1
+				from participations p
+				inner join course_schedules cs on cs.id = p.course_schedule_id
+				inner join enrollments e on e.course_id = cs.course_id
+				where (e.student_id + p.id) % 10 = 0
+				""",
+				"""
+				insert into attendance_summaries (id, student_id, course_id, total_present, total_late, total_absent, created_at, updated_at)
+				select e.id, e.student_id, e.course_id, 13, 2, 1, now(), now()
+				from enrollments e
+				""",
+				// a long tail of sent mail and a few due ones
+				"""
+				insert into email_outboxes (id, recipient, subject, body, status, attempt_count, next_attempt_at, created_at, sent_at)
+				select i, 'user' || i % 2000 || '@example.com', 'summary', 'body',
+					case when i % 500 = 0 then 'PENDING' else 'SENT' end, 1, timestamp '2026-07-01 00:00:00' + i * interval '1 minute', now(), now()
+				from generate_series(1, 20000) i
+				""",
+				"ANALYZE");
+
+		try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+			statement.execute("SET search_path TO myclassmate");
+			for (var sql : statements) {
+				statement.execute(sql);
+			}
+		}
+	}
+}
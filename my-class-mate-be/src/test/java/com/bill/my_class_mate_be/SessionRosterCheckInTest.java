@@ -0,0 +1,206 @@
+package com.bill.my_class_mate_be;
+
+import com.bill.constant.RoleEnum;
+import com.bill.exceptionhandler.AppException;
+import com.bill.model.response.StudentProfileResponse;
+import com.bill.model.response.UserResponse;
+import com.bill.repository.AttendanceJdbcRepository;
+import com.bill.repository.CourseRepository;
+import com.bill.repository.CourseScheduleRepository;
+import com.bill.repository.EnrollmentRepository;
+import com.bill.repository.StudentProfileRepository;
+import com.bill.repository.UserRepository;
+import com.bill.repository.entity.Attendance;
+import com.bill.repository.entity.Course;
+import com.bill.repository.entity.CourseSchedule;
+import com.bill.repository.entity.StudentProfile;
+import com.bill.repository.entity.User;
+import com.bill.service.FaceRecognizer;
+import com.bill.service.FaceRecognizer.Recognition;
+import com.bill.service.FaceService;
+import com.bill.service.SessionRosterCache;
+import com.bill.service.StudentProfileService;
+import com.bill.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.StreamSupport;
+
+import static com.bill.exceptionhandler.ErrorEnum.ERROR_ENROLLMENT_NOT_FOUND;
+import static com.bill.exceptionhandler.ErrorEnum.ERROR_STUDENT_PROFILE_NOT_FOUND;
+import static com.bill.exceptionhandler.ErrorEnum.ERROR_USER_NOT_FOUND;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// course 1 has students 1 and 2, student 3 who was soft deleted (enrollment kept) and student 4 without a
+// student profile, the session roster still loads and only the check-ins of 3 and 4 fail. Student 5 is not enrolled
+class SessionRosterCheckInTest {
+	private static final long COURSE_ID = 1L;
+	private static final long COURSE_SCHEDULE_ID = 10L;
+	private static final Set<Long> ACTIVE_USER_IDS = Set.of(1L, 2L, 4L, 5L);
+	private static final Set<Long> PROFILE_IDS = Set.of(1L, 2L, 5L);
+
+	private FaceRecognizer faceRecognizer;
+	private AttendanceJdbcRepository attendanceJdbcRepository;
+	private FaceService faceService;
+
+	@BeforeEach
+	void setUp() {
+		var userRepository = mock(UserRepository.class);
+		when(userRepository.findByIdAndIsDeletedFalse(anyLong()))
+				.thenAnswer(invocation -> Optional.ofNullable(user(invocation.getArgument(0))));
+		when(userRepository.findByIdInAndIsDeletedFalse(anyCollection()))
+				.thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream().map(this::user).filter(user -> user != null).toList());
+
+		var studentProfileRepository = mock(StudentProfileRepository.class);
+		when(studentProfileRepository.findById(anyLong()))
+				.thenAnswer(invocation -> Optional.ofNullable(studentProfile(invocation.getArgument(0))));
+		when(studentProfileRepository.findAllById(anyIterable()))
+				.thenAnswer(invocation -> StreamSupport.stream(invocation.<Iterable<Long>>getArgument(0).spliterator(), false)
+						.map(this::studentProfile).filter(profile -> profile != null).toList());
+
+		var courseRepository = mock(CourseRepository.class);
+		when(courseRepository.findById(COURSE_ID))
+				.thenReturn(Optional.of(Course.builder().id(COURSE_ID).courseCode("CS101").build()));
+
+		var courseScheduleRepository = mock(CourseScheduleRepository.class);
+		when(courseScheduleRepository.findById(COURSE_SCHEDULE_ID)).thenReturn(Optional.of(CourseSchedule.builder()
+				.id(COURSE_SCHEDULE_ID)
+				.courseId(COURSE_ID)
+				.scheduleDate(LocalDate.now())
+				.startTime(LocalTime.now().minusMinutes(5))
+				.endTime(LocalTime.MAX)
+				.build()));
+
+		var enrollmentRepository = mock(EnrollmentRepository.class);
+		when(enrollmentRepository.findStudentIdsByCourseId(COURSE_ID)).thenReturn(Set.of(1L, 2L, 3L, 4L));
+
+		attendanceJdbcRepository = mock(AttendanceJdbcRepository.class);
+		when(attendanceJdbcRepository.insertIfAbsent(any())).thenAnswer(invocation -> withId(invocation.getArgument(0)));
+		when(attendanceJdbcRepository.findAttendances(anyLong(), anyCollection())).thenReturn(List.of());
+		when(attendanceJdbcRepository.insertAttendances(anyList()))
+				.thenAnswer(invocation -> invocation.<List<Attendance>>getArgument(0).stream().map(this::withId).toList());
+
+		var modelMapper = new ModelMapper();
+		Cache<Long, UserResponse> userCache = Caffeine.newBuilder().build();
+		Cache<Long, StudentProfileResponse> studentProfileCache = Caffeine.newBuilder().build();
+		var userService = new UserService(studentProfileRepository, null, modelMapper, userRepository, null,
+				userCache, studentProfileCache, null);
+		var studentProfileService = new StudentProfileService(modelMapper, userService, studentProfileRepository, studentProfileCache);
+
+		var sessionRosterCache = new SessionRosterCache();
+		ReflectionTestUtils.setField(sessionRosterCache, "courseRepository", courseRepository);
+		ReflectionTestUtils.setField(sessionRosterCache, "courseScheduleRepository", courseScheduleRepository);
+		ReflectionTestUtils.setField(sessionRosterCache, "enrollmentRepository", enrollmentRepository);
+		ReflectionTestUtils.setField(sessionRosterCache, "studentProfileService", studentProfileService);
+
+		faceRecognizer = mock(FaceRecognizer.class);
+		faceService = new FaceService(null, faceRecognizer, userService, studentProfileService, enrollmentRepository,
+				courseRepository, courseScheduleRepository, attendanceJdbcRepository, sessionRosterCache,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry());
+	}
+
+	@Test
+	void singleCheckInFailsOnlyForUnresolvedStudents() {
+		var file = photo("student.jpg");
+
+		when(faceRecognizer.recognize(file)).thenReturn(1L);
+		var attendance = faceService.attendance(COURSE_ID, COURSE_SCHEDULE_ID, file);
+		assertThat(attendance.getStudentNo()).isEqualTo("6500000001");
+		assertThat(attendance.getCourseCode()).isEqualTo("CS101");
+
+		when(faceRecognizer.recognize(file)).thenReturn(3L);
+		assertThatThrownBy(() -> faceService.attendance(COURSE_ID, COURSE_SCHEDULE_ID, file))
+				.isInstanceOf(AppException.class)
+				.extracting("code").isEqualTo(ERROR_USER_NOT_FOUND.getCode());
+
+		when(faceRecognizer.recognize(file)).thenReturn(4L);
+		assertThatThrownBy(() -> faceService.attendance(COURSE_ID, COURSE_SCHEDULE_ID, file))
+				.isInstanceOf(AppException.class)
+				.extracting("code").isEqualTo(ERROR_STUDENT_PROFILE_NOT_FOUND.getCode());
+
+		when(faceRecognizer.recognize(file)).thenReturn(2L);
+		assertThat(faceService.attendance(COURSE_ID, COURSE_SCHEDULE_ID, file).getStudentNo()).isEqualTo("6500000002");
+	}
+
+	@Test
+	void bulkCheckInWritesResolvedStudentsAndReportsTheOthers() {
+		List<MultipartFile> files = List.of(photo("1.jpg"), photo("3.jpg"), photo("2.jpg"), photo("4.jpg"), photo("5.jpg"));
+		when(faceRecognizer.recognizeAll(files)).thenReturn(List.of(
+				new Recognition(1L, null, null),
+				new Recognition(3L, null, null),
+				new Recognition(2L, null, null),
+				new Recognition(4L, null, null),
+				new Recognition(5L, null, null)));
+
+		var response = faceService.bulkAttendance(COURSE_ID, COURSE_SCHEDULE_ID, files);
+
+		assertThat(response.getInsertedRow()).isEqualTo(2);
+		var results = response.getResults();
+		assertThat(results.get(0).isSuccess()).isTrue();
+		assertThat(results.get(1).getErrorCode()).isEqualTo(ERROR_USER_NOT_FOUND.getCode());
+		assertThat(results.get(2).isSuccess()).isTrue();
+		assertThat(results.get(3).getErrorCode()).isEqualTo(ERROR_STUDENT_PROFILE_NOT_FOUND.getCode());
+		// the student number, as the single check-in reports it
+		assertThat(results.get(4).getErrorCode()).isEqualTo(ERROR_ENROLLMENT_NOT_FOUND.getCode());
+		assertThat(results.get(4).getErrorMessage()).isEqualTo(ERROR_ENROLLMENT_NOT_FOUND.format("6500000005"));
+		verify(attendanceJdbcRepository).insertAttendances(argThat(attendances ->
+				attendances.stream().map(Attendance::getStudentId).toList().equals(List.of(1L, 2L))));
+	}
+
+	private User user(long userId) {
+		if (!ACTIVE_USER_IDS.contains(userId)) {
+			return null;
+		}
+		return User.builder()
+				.id(userId)
+				.username("student" + userId)
+				.nameTh("ชื่อ" + userId)
+				.surnameTh("นามสกุล" + userId)
+				.nameEn("name" + userId)
+				.surnameEn("surname" + userId)
+				.role(RoleEnum.STUDENT)
+				.isDeleted(false)
+				.build();
+	}
+
+	private StudentProfile studentProfile(long studentId) {
+		if (!PROFILE_IDS.contains(studentId)) {
+			return null;
+		}
+		return StudentProfile.builder().studentId(studentId).studentNo("650000000" + studentId).build();
+	}
+
+	private Attendance withId(Attendance attendance) {
+		attendance.setId(100L + attendance.getStudentId());
+		return attendance;
+	}
+
+	private static MockMultipartFile photo(String fileName) {
+		return new MockMultipartFile("file", fileName, "image/jpeg", new byte[]{1});
+	}
+}
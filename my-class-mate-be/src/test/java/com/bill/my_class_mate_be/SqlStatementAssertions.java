@@ -0,0 +1,25 @@
+package com.bill.my_class_mate_be;
+
+import com.bill.interceptor.SqlStatistics;
+
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// upper bound on statements per endpoint, e.g.
+// SqlStatementAssertions.assertMaxStatements(5, () -> mockMvc.perform(get("/v1/courses").header("X-Role", "ADMIN")));
+public final class SqlStatementAssertions {
+
+	private SqlStatementAssertions() {
+	}
+
+	public static <T> T assertMaxStatements(int max, Callable<T> call) throws Exception {
+		try (var statistics = SqlStatistics.open(true)) {
+			var result = call.call();
+			assertThat(statistics.getStatements())
+					.as("sql statements, executions per shape: %s", statistics.getShapes())
+					.isLessThanOrEqualTo(max);
+			return result;
+		}
+	}
+}